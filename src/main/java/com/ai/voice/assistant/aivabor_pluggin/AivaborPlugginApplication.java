@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication(exclude = { DataSourceAutoConfiguration.class })
 @OpenAPIDefinition(
@@ -17,7 +18,11 @@ import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 public class AivaborPlugginApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(AivaborPlugginApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(AivaborPlugginApplication.class, args);
+        // In headless batch mode the job has already run; exit with its status code
+        if (context.getEnvironment().getProperty("aivabor.cli.enabled", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
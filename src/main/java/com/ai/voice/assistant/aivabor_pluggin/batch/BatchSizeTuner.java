@@ -0,0 +1,188 @@
+package com.ai.voice.assistant.aivabor_pluggin.batch;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Adjusts the write batch and fetch size of one job by hill climbing on measured throughput.
+ * <p>
+ * Each step keeps the size for a few batches, measures rows per second end to end (reading,
+ * embedding and writing) and moves the size further in the same direction while throughput
+ * improves. When it drops, the direction is reversed with a smaller step, so the size settles
+ * around the peak. A batch whose write exceeds the latency bound, or low heap headroom, shrinks
+ * the size at once and caps it there; every later step without a breach lifts the cap again
+ * toward the configured maximum, so a single spike does not pin the size for the rest of the
+ * load. Heap headroom is measured on the heap left live after the last collection, so garbage
+ * awaiting collection does not count. Not thread-safe; use one instance per loader.
+ */
+public class BatchSizeTuner {
+
+    private static final int SAMPLES_PER_STEP = 3;
+    private static final double INITIAL_STEP = 2.0;
+    private static final double MIN_STEP = 1.1;
+    private static final double MIN_HEAP_HEADROOM = 0.15;
+    private static final double CAP_RECOVERY = 1.25;
+
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported())
+            .toList();
+
+    private final boolean adaptive;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxLatencyNanos;
+    private final LongSupplier clock;
+    private final DoubleSupplier heapHeadroom;
+
+    // Upper bound after a back-off; recovers toward maxSize
+    private int cap;
+    private int batchSize;
+    private double step = INITIAL_STEP;
+    private boolean growing = true;
+    private double previousThroughput = -1;
+
+    private long windowRows;
+    private long windowNanos;
+    private int windowSamples;
+    private long lastMark;
+
+    private long totalRows;
+    private long totalNanos;
+    private int adjustments;
+    private int bestSize;
+    private double bestThroughput;
+
+    public BatchSizeTuner(boolean adaptive, int initialSize, int minSize, int maxSize, long maxLatencyMillis) {
+        this(adaptive, initialSize, minSize, maxSize, maxLatencyMillis, System::nanoTime, BatchSizeTuner::liveHeapHeadroom);
+    }
+
+    BatchSizeTuner(boolean adaptive, int initialSize, int minSize, int maxSize, long maxLatencyMillis,
+                   LongSupplier clock, DoubleSupplier heapHeadroom) {
+        if (minSize < 1 || minSize > initialSize || initialSize > maxSize) {
+            throw new IllegalArgumentException("Batch sizes must satisfy 1 <= min <= initial <= max: "
+                    + minSize + ", " + initialSize + ", " + maxSize);
+        }
+        this.adaptive = adaptive;
+        this.batchSize = initialSize;
+        this.bestSize = initialSize;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.cap = maxSize;
+        this.maxLatencyNanos = maxLatencyMillis * 1_000_000;
+        this.clock = clock;
+        this.heapHeadroom = heapHeadroom;
+        this.lastMark = clock.getAsLong();
+    }
+
+    /**
+     * Number of rows to queue before executing and committing a batch.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Number of rows to fetch per round trip; reads follow the write batch size.
+     */
+    public int getFetchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Records a written batch and its write latency (execute plus commit), and adjusts the size.
+     */
+    public void recordBatch(int rows, long writeNanos) {
+        long now = clock.getAsLong();
+        long elapsed = now - lastMark;
+        lastMark = now;
+        totalRows += rows;
+        totalNanos += elapsed;
+        if (!adaptive) {
+            return;
+        }
+
+        if (writeNanos > maxLatencyNanos || heapHeadroom.getAsDouble() < MIN_HEAP_HEADROOM) {
+            // Over a hard bound: back off and do not grow past this size until the cap recovers
+            growing = false;
+            resize();
+            cap = batchSize;
+            previousThroughput = -1;
+            resetWindow();
+            return;
+        }
+
+        windowRows += rows;
+        windowNanos += elapsed;
+        if (++windowSamples < SAMPLES_PER_STEP) {
+            return;
+        }
+        double throughput = windowRows * 1e9 / Math.max(1, windowNanos);
+        resetWindow();
+        cap = (int) Math.min(maxSize, Math.ceil(cap * CAP_RECOVERY));
+
+        if (throughput > bestThroughput) {
+            bestThroughput = throughput;
+            bestSize = batchSize;
+        }
+        if (previousThroughput >= 0 && throughput < previousThroughput) {
+            // Went past the peak: turn around with a smaller step
+            growing = !growing;
+            step = Math.max(MIN_STEP, Math.sqrt(step));
+        }
+        previousThroughput = throughput;
+        resize();
+    }
+
+    /**
+     * Summarizes the tuning for the job log, in a form that can be pinned in configuration.
+     */
+    public String report() {
+        double overall = totalRows * 1e9 / Math.max(1, totalNanos);
+        if (!adaptive) {
+            return String.format("fixed batch size %d, %.0f rows/s", batchSize, overall);
+        }
+        return String.format("batch size %d after %d adjustments (best %d at %.0f rows/s), %.0f rows/s overall; " +
+                        "pin with aivabor.batch.adaptive=false and aivabor.batch.initial-size=%d",
+                batchSize, adjustments, bestSize, bestThroughput, overall, bestSize);
+    }
+
+    private void resize() {
+        int next = growing
+                ? (int) Math.min(cap, Math.ceil(batchSize * step))
+                : (int) Math.max(minSize, Math.floor(batchSize / step));
+        if (next == batchSize) {
+            // Pinned against a bound: probe the other way next time
+            growing = !growing;
+            return;
+        }
+        batchSize = next;
+        adjustments++;
+    }
+
+    private void resetWindow() {
+        windowRows = 0;
+        windowNanos = 0;
+        windowSamples = 0;
+    }
+
+    /**
+     * Share of the maximum heap not taken by objects that survived the last collection of each
+     * heap pool. Unlike total minus free memory, this ignores garbage not yet collected.
+     */
+    private static double liveHeapHeadroom() {
+        long max = Runtime.getRuntime().maxMemory();
+        long live = 0;
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                live += usage.getUsed();
+            }
+        }
+        return (double) (max - live) / max;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ai.voice.assistant.aivabor_pluggin.batch;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates a {@link BatchSizeTuner} per loader from the {@code aivabor.batch.*} settings.
+ */
+@Component
+public class BatchSizeTunerFactory {
+
+    private final boolean adaptive;
+    private final int initialSize;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxLatencyMillis;
+
+    public BatchSizeTunerFactory(@Value("${aivabor.batch.adaptive:true}") boolean adaptive,
+                                 @Value("${aivabor.batch.initial-size:500}") int initialSize,
+                                 @Value("${aivabor.batch.min-size:50}") int minSize,
+                                 @Value("${aivabor.batch.max-size:5000}") int maxSize,
+                                 @Value("${aivabor.batch.max-latency-ms:2000}") long maxLatencyMillis) {
+        this.adaptive = adaptive;
+        this.initialSize = initialSize;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxLatencyMillis = maxLatencyMillis;
+        // Fail at startup rather than on the first job
+        create();
+    }
+
+    public BatchSizeTuner create() {
+        return create(null);
+    }
+
+    /**
+     * Creates a tuner starting at the given batch size, clamped to the configured bounds,
+     * or at the configured initial size if none is given.
+     */
+    public BatchSizeTuner create(Integer startSize) {
+        int start = startSize != null ? Math.max(minSize, Math.min(maxSize, startSize)) : initialSize;
+        return new BatchSizeTuner(adaptive, start, minSize, maxSize, maxLatencyMillis);
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ai.voice.assistant.aivabor_pluggin.batch;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decides how failing rows are handled, from the {@code aivabor.errors.*} settings: which texts are
+ * rejected up front, which errors are retried with exponential backoff, which abort the job rather
+ * than being blamed on a row, and how many failing rows a job tolerates.
+ */
+@Component
+public class RowErrorPolicy {
+
+    private final int maxTextChars;
+    private final int maxFailedRows;
+    private final int maxRetries;
+    private final long backoffMillis;
+
+    public RowErrorPolicy(@Value("${aivabor.errors.max-text-chars:32000}") int maxTextChars,
+                          @Value("${aivabor.errors.max-failed-rows:1000}") int maxFailedRows,
+                          @Value("${aivabor.errors.max-retries:3}") int maxRetries,
+                          @Value("${aivabor.errors.backoff-ms:200}") long backoffMillis) {
+        this.maxTextChars = maxTextChars;
+        this.maxFailedRows = maxFailedRows;
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * Returns why the text cannot be embedded, or null if it can.
+     */
+    public String checkText(String text) {
+        if (text.length() > maxTextChars) {
+            return "Text of " + text.length() + " characters exceeds the limit of " + maxTextChars + ".";
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\u0000' || c == '\uFFFD') {
+                return "Text contains " + (c == 0 ? "a NUL character" : "a replacement character from a failed decode")
+                        + " at offset " + i + ".";
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return "Text contains an unpaired surrogate at offset " + i + ".";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the call, retrying it with exponential backoff while it fails transiently.
+     */
+    public <T> T callWithRetry(Callable<T> call) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                if (attempt >= maxRetries || !isTransient(e)) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void backoff(int attempt) throws InterruptedException {
+        Thread.sleep(backoffMillis << Math.min(attempt, 10));
+    }
+
+    /**
+     * Whether the error may go away on retry, e.g. a deadlock, serialization failure or timeout.
+     */
+    public boolean isTransient(Exception e) {
+        if (e instanceof SQLException sqlException) {
+            String state = sqlException.getSQLState();
+            return !isConnectionFailure(sqlException)
+                    && (e instanceof SQLTransientException || "40001".equals(state) || "40P01".equals(state));
+        }
+        return e instanceof IOException || e instanceof TimeoutException;
+    }
+
+    /**
+     * Whether the connection itself failed, so the error says nothing about the rows and the job must stop.
+     */
+    public boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return (state != null && state.startsWith("08")) || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException || e instanceof SQLTransientConnectionException;
+    }
+
+    public int getMaxFailedRows() {
+        return maxFailedRows;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+}
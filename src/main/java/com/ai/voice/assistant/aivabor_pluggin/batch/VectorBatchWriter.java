@@ -0,0 +1,227 @@
+package com.ai.voice.assistant.aivabor_pluggin.batch;
+
+import com.ai.voice.assistant.aivabor_pluggin.jfr.LoadStageRecorder;
+import com.ai.voice.assistant.aivabor_pluggin.vector.VectorFileWriter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Queues embeddings on a write statement and commits them in tuned batches, isolating poison rows.
+ * <p>
+ * A batch that fails transiently is retried with backoff. Otherwise it is bisected, each half
+ * written and committed on its own, until the failing rows are isolated. Those rows, and the rows
+ * rejected before reaching the batch, go to the dead-letter sink in the same transaction as the
+ * last commit of the batch. Connection failures are not blamed on rows and abort the load.
+ * Not thread-safe; use one instance per loader.
+ */
+@Slf4j
+public class VectorBatchWriter {
+
+    /**
+     * Binds one row to the write statement.
+     */
+    @FunctionalInterface
+    public interface RowBinder {
+        void bind(PreparedStatement stmt, int id, float[] embedding) throws Exception;
+    }
+
+    /**
+     * Writes failed rows on the given connection, without committing.
+     */
+    @FunctionalInterface
+    public interface DeadLetterSink {
+        void write(Connection conn, List<FailedRow> rows) throws SQLException;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class FailedRow {
+        // Null if the id itself could not be read
+        private final Integer id;
+        private final String stage;
+        private final String reason;
+    }
+
+    private final Connection conn;
+    private final PreparedStatement stmt;
+    private final RowBinder binder;
+    private final DeadLetterSink deadLetterSink;
+    private final RowErrorPolicy policy;
+    private final BatchSizeTuner tuner;
+    private final LoadStageRecorder stages;
+    private final VectorFileWriter exportWriter;
+
+    private final List<Integer> ids = new ArrayList<>();
+    private final List<float[]> embeddings = new ArrayList<>();
+    private final List<FailedRow> failedRows = new ArrayList<>();
+    private final BitSet rejected = new BitSet();
+    private long failedCount;
+    private long transientFailedCount;
+
+    public VectorBatchWriter(Connection conn, PreparedStatement stmt, RowBinder binder, DeadLetterSink deadLetterSink,
+                             RowErrorPolicy policy, BatchSizeTuner tuner, LoadStageRecorder stages,
+                             VectorFileWriter exportWriter) {
+        this.conn = conn;
+        this.stmt = stmt;
+        this.binder = binder;
+        this.deadLetterSink = deadLetterSink;
+        this.policy = policy;
+        this.tuner = tuner;
+        this.stages = stages;
+        this.exportWriter = exportWriter;
+    }
+
+    /**
+     * Binds the row and queues it for the next batch.
+     */
+    public void add(int id, float[] embedding) throws Exception {
+        binder.bind(stmt, id, embedding);
+        stmt.addBatch();
+        ids.add(id);
+        embeddings.add(embedding);
+    }
+
+    /**
+     * Records a row that failed before reaching the batch. Fails the load once more rows failed
+     * than {@code aivabor.errors.max-failed-rows}, as that points at a systemic problem.
+     */
+    public void reject(Integer id, String stage, Exception cause) throws Exception {
+        failedRows.add(new FailedRow(id, stage, describe(cause)));
+        if (policy.isTransient(cause)) {
+            transientFailedCount++;
+        }
+        if (++failedCount > policy.getMaxFailedRows()) {
+            throw new Exception("More than " + policy.getMaxFailedRows() + " rows failed; last failure: "
+                    + describe(cause), cause);
+        }
+    }
+
+    public boolean isFull() {
+        return ids.size() >= tuner.getBatchSize();
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns how many of the failed rows still failed transiently after their retries, so that a
+     * later attempt may succeed where one with the same input cannot.
+     */
+    public long getTransientFailedCount() {
+        return transientFailedCount;
+    }
+
+    /**
+     * Writes and commits the queued rows and the failed rows collected since the last flush.
+     */
+    public void flush() throws Exception {
+        int rows = ids.size();
+        if (rows == 0 && failedRows.isEmpty()) {
+            return;
+        }
+        long writeStart = System.nanoTime();
+        if (rows > 0) {
+            try {
+                stmt.executeBatch();
+            } catch (SQLException e) {
+                recover(e);
+                log.warn("Batch of {} rows failed ({}); isolating the failing rows.", rows, describe(e));
+                handleFailure(0, rows, 0, e);
+            }
+        }
+        long commitStart = System.nanoTime();
+        if (!failedRows.isEmpty()) {
+            deadLetterSink.write(conn, failedRows);
+        }
+        conn.commit();
+        long commitEnd = System.nanoTime();
+
+        if (rows > 0) {
+            tuner.recordBatch(rows, commitEnd - writeStart);
+            stages.recordFlush(rows, writeStart, commitStart, commitEnd);
+        }
+        if (exportWriter != null) {
+            for (int i = 0; i < rows; i++) {
+                if (!rejected.get(i)) {
+                    exportWriter.append(ids.get(i), embeddings.get(i));
+                }
+            }
+        }
+        ids.clear();
+        embeddings.clear();
+        failedRows.clear();
+        rejected.clear();
+    }
+
+    /**
+     * Writes and commits the queued rows in [from, to) as a batch of their own.
+     */
+    private void writeRange(int from, int to, int attempt) throws Exception {
+        try {
+            for (int i = from; i < to; i++) {
+                binder.bind(stmt, ids.get(i), embeddings.get(i));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            recover(e);
+            handleFailure(from, to, attempt, e);
+        }
+    }
+
+    /**
+     * Retries a transiently failed range, or bisects it down to the rows that fail.
+     */
+    private void handleFailure(int from, int to, int attempt, SQLException cause) throws Exception {
+        if (policy.isTransient(cause) && attempt < policy.getMaxRetries()) {
+            policy.backoff(attempt);
+            writeRange(from, to, attempt + 1);
+        } else if (to - from == 1) {
+            rejected.set(from);
+            reject(ids.get(from), "WRITE", cause);
+        } else {
+            int mid = (from + to) >>> 1;
+            writeRange(from, mid, 0);
+            writeRange(mid, to, 0);
+        }
+    }
+
+    /**
+     * Discards the failed batch, rethrowing errors that are not caused by the rows.
+     */
+    private void recover(SQLException e) throws SQLException {
+        if (policy.isConnectionFailure(e)) {
+            throw e;
+        }
+        stmt.clearBatch();
+        conn.rollback();
+    }
+
+    /**
+     * Describes an error for the dead-letter table; batch errors carry the actual cause as next exception.
+     */
+    private static String describe(Exception e) {
+        StringBuilder reason = new StringBuilder(e.getClass().getSimpleName()).append(": ").append(e.getMessage());
+        if (e instanceof SQLException sqlException) {
+            if (sqlException.getSQLState() != null) {
+                reason.append(" [SQLState ").append(sqlException.getSQLState()).append("]");
+            }
+            SQLException next = sqlException.getNextException();
+            if (e instanceof BatchUpdateException && next != null) {
+                reason.append(" Caused by: ").append(next.getMessage());
+            }
+        }
+        return reason.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ai.voice.assistant.aivabor_pluggin.cli;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.EnvironmentType;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.service.DataProcessingFacadeService;
+import com.ai.voice.assistant.aivabor_pluggin.service.DataProcessingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a single processing job from configuration and exits, for use from cron or Kubernetes Jobs.
+ * <p>
+ * The job is bound from {@code aivabor.job.*} (command-line arguments or a YAML file passed with
+ * {@code --spring.config.import}) and the environment from {@code aivabor.cli.environment}.
+ * A job that is missing or has invalid table, id or field names exits with {@link #EXIT_INVALID_JOB}
+ * before connecting; a job that fails while running exits with {@link #EXIT_FAILED}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "aivabor.cli.enabled", havingValue = "true")
+public class ProcessJobRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_INVALID_JOB = 2;
+
+    private final DataProcessingFacadeService dataProcessingFacadeService;
+    private final DataProcessingService dataProcessingService;
+    private final Environment environment;
+
+    private int exitCode;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Binder binder = Binder.get(environment);
+        ProcessRequest request = binder.bind("aivabor.job", ProcessRequest.class).orElse(null);
+        if (request == null || request.getUrl() == null || request.getFields() == null) {
+            log.error("No job defined; set at least aivabor.job.url, aivabor.job.table-name, " +
+                    "aivabor.job.id-name and aivabor.job.fields.");
+            exitCode = EXIT_INVALID_JOB;
+            return;
+        }
+        try {
+            dataProcessingService.validateIdentifiers(request);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid job: {}", e.getMessage());
+            exitCode = EXIT_INVALID_JOB;
+            return;
+        }
+        EnvironmentType environmentType = binder.bind("aivabor.cli.environment", EnvironmentType.class)
+                .orElse(EnvironmentType.DOCKER);
+
+        long start = System.nanoTime();
+        try {
+            String jobId = dataProcessingFacadeService.processData(request, environmentType);
+            log.info("Job {} for table '{}' completed in {} ms.", jobId, request.getTableName(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid job: {}", e.getMessage());
+            exitCode = EXIT_INVALID_JOB;
+        } catch (Exception e) {
+            log.error("Job for table '{}' failed: {}", request.getTableName(), e.getMessage(), e);
+            exitCode = EXIT_FAILED;
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
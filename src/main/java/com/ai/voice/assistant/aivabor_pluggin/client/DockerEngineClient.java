@@ -0,0 +1,467 @@
+package com.ai.voice.assistant.aivabor_pluggin.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Minimal Docker Engine API client speaking HTTP/1.1 over the daemon's Unix socket.
+ * <p>
+ * Keep-alive connections are pooled and reused between requests. Exec output is read on a
+ * separate thread, demultiplexed frame by frame into stdout and stderr, and handed to the
+ * caller line by line as it arrives. The socket path is configurable, so the client can be
+ * pointed at a fake server.
+ */
+@Component
+@Slf4j
+public class DockerEngineClient {
+
+    private static final String API_VERSION = "/v1.41";
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    private static final int STDOUT = 1;
+    private static final int STDERR = 2;
+
+    private final Path socketPath;
+    private final Duration execTimeout;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Deque<EngineConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final ExecutorService outputReaders = Executors.newCachedThreadPool();
+
+    public DockerEngineClient(@Value("${aivabor.docker.socket:/var/run/docker.sock}") String socketPath,
+                              @Value("${aivabor.docker.exec-timeout:30m}") Duration execTimeout) {
+        this.socketPath = Path.of(socketPath);
+        this.execTimeout = execTimeout;
+    }
+
+    /**
+     * Checks whether the Docker daemon socket exists on this host.
+     */
+    public boolean isAvailable() {
+        return Files.exists(socketPath);
+    }
+
+    /**
+     * Lists the names of running containers whose name matches the filter.
+     */
+    public List<String> listContainerNames(String nameFilter) throws IOException {
+        String filters = objectMapper.writeValueAsString(Map.of("name", List.of(nameFilter)));
+        Response response = send("GET", "/containers/json?filters=" + encode(filters), null);
+
+        List<String> names = new ArrayList<>();
+        for (JsonNode container : objectMapper.readTree(response.body())) {
+            JsonNode containerNames = container.get("Names");
+            if (containerNames != null && containerNames.size() > 0) {
+                names.add(containerNames.get(0).asText().replaceFirst("^/", ""));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Runs a command inside a container, streaming its stdout and stderr lines to their
+     * consumers, and returns the command's exit code. The consumers are called from the
+     * output reader thread, one line at a time.
+     */
+    public int exec(String containerName, List<String> command, String user, Consumer<String> stdoutConsumer,
+                    Consumer<String> stderrConsumer) throws IOException {
+        Map<String, Object> spec = new LinkedHashMap<>();
+        spec.put("AttachStdout", true);
+        spec.put("AttachStderr", true);
+        spec.put("Tty", false);
+        spec.put("Cmd", command);
+        if (user != null) {
+            spec.put("User", user);
+        }
+        Response created = send("POST", "/containers/" + encode(containerName) + "/exec",
+                objectMapper.writeValueAsBytes(spec));
+        String execId = objectMapper.readTree(created.body()).get("Id").asText();
+
+        streamExecOutput(execId, stdoutConsumer, stderrConsumer);
+
+        Response inspected = send("GET", "/exec/" + execId + "/json", null);
+        return objectMapper.readTree(inspected.body()).get("ExitCode").asInt();
+    }
+
+    /**
+     * Extracts a tar archive into a directory of the container.
+     */
+    public void putArchive(String containerName, String containerDir, byte[] tar) throws IOException {
+        send("PUT", "/containers/" + encode(containerName) + "/archive?path=" + encode(containerDir), tar,
+                "application/x-tar");
+    }
+
+    /**
+     * Packs the regular files and directories below a local directory into an uncompressed
+     * ustar archive, with paths relative to that directory.
+     */
+    public static byte[] tarDirectory(Path dir) throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        List<Path> entries;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            entries = walk.filter(path -> !path.equals(dir)).sorted().toList();
+        }
+        for (Path entry : entries) {
+            String name = dir.relativize(entry).toString().replace('\\', '/');
+            if (Files.isDirectory(entry)) {
+                tar.write(tarHeader(name + "/", 0, '5', 0755));
+            } else {
+                byte[] content = Files.readAllBytes(entry);
+                tar.write(tarHeader(name, content.length, '0', 0644));
+                tar.write(content);
+                tar.write(new byte[(TAR_BLOCK_SIZE - content.length % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE]);
+            }
+        }
+        tar.write(new byte[2 * TAR_BLOCK_SIZE]);
+        return tar.toByteArray();
+    }
+
+    @PreDestroy
+    public void close() {
+        outputReaders.shutdownNow();
+        EngineConnection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private Response send(String method, String path, byte[] body) throws IOException {
+        return send(method, path, body, "application/json");
+    }
+
+    /**
+     * Sends a request on a pooled connection, retrying on another connection if a reused
+     * one turns out to have been closed by the daemon.
+     */
+    private Response send(String method, String path, byte[] body, String contentType) throws IOException {
+        EngineConnection connection = idleConnections.poll();
+        boolean reused = connection != null;
+        if (!reused) {
+            connection = new EngineConnection();
+        }
+
+        Response response;
+        try {
+            connection.writeRequest(method, path, body, contentType);
+            response = connection.readResponse();
+        } catch (IOException e) {
+            connection.close();
+            if (!reused) {
+                throw e;
+            }
+            return send(method, path, body, contentType);
+        }
+
+        if (response.keepAlive()) {
+            idleConnections.push(connection);
+        } else {
+            connection.close();
+        }
+        if (response.status() >= 400) {
+            throw new IOException("Docker Engine API " + method + " " + path + " failed with status "
+                    + response.status() + ": " + new String(response.body(), StandardCharsets.UTF_8).trim());
+        }
+        return response;
+    }
+
+    /**
+     * Starts an exec on a dedicated connection, which the daemon hijacks for the raw stream,
+     * and waits while a reader thread decodes the multiplexed frames until the command exits.
+     * Closing the connection is what unblocks the reader if the wait is interrupted or times out.
+     */
+    private void streamExecOutput(String execId, Consumer<String> stdoutConsumer,
+                                  Consumer<String> stderrConsumer) throws IOException {
+        try (EngineConnection connection = new EngineConnection()) {
+            connection.writeRequest("POST", "/exec/" + execId + "/start",
+                    objectMapper.writeValueAsBytes(Map.of("Detach", false, "Tty", false)), "application/json");
+            int status = connection.readStatusAndHeaders(new HashMap<>());
+            if (status >= 400) {
+                throw new IOException("Docker Engine API exec start failed with status " + status);
+            }
+
+            Future<?> reader = outputReaders.submit(() -> {
+                readFrames(connection.in, new LineSplitter(stdoutConsumer), new LineSplitter(stderrConsumer));
+                return null;
+            });
+            try {
+                reader.get(execTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                reader.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading the output of exec " + execId);
+            } catch (TimeoutException e) {
+                reader.cancel(true);
+                throw new IOException("Exec " + execId + " produced no end of output within " + execTimeout);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException("Failed to read the output of exec " + execId, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Decodes the multiplexed exec stream: each frame is an 8-byte header holding the stream
+     * type and payload size, followed by the payload. Stdout and stderr keep separate line
+     * buffers, so a line split across frames is not spliced with the other stream's output.
+     */
+    private static void readFrames(InputStream in, LineSplitter stdout, LineSplitter stderr) throws IOException {
+        byte[] header = new byte[8];
+        while (in.readNBytes(header, 0, header.length) == header.length) {
+            int size = ByteBuffer.wrap(header, 4, 4).getInt();
+            byte[] payload = in.readNBytes(size);
+            if (payload.length < size) {
+                throw new EOFException("Connection closed inside an exec output frame.");
+            }
+            switch (header[0]) {
+                case STDOUT:
+                    stdout.write(payload);
+                    break;
+                case STDERR:
+                    stderr.write(payload);
+                    break;
+                default:
+                    log.debug("Ignoring exec output frame of stream type {}", header[0]);
+                    break;
+            }
+        }
+        stdout.flush();
+        stderr.flush();
+    }
+
+    private static byte[] tarHeader(String name, long size, char type, int mode) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > 100) {
+            throw new IOException("Path too long for a tar entry: " + name);
+        }
+        byte[] header = new byte[TAR_BLOCK_SIZE];
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        writeOctal(header, 100, 8, mode);
+        writeOctal(header, 108, 8, 0);
+        writeOctal(header, 116, 8, 0);
+        writeOctal(header, 124, 12, size);
+        writeOctal(header, 136, 12, System.currentTimeMillis() / 1000);
+        header[156] = (byte) type;
+        System.arraycopy(("ustar\0" + "00").getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+        // The checksum is computed with its own field filled with spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        writeOctal(header, 148, 7, checksum);
+        return header;
+    }
+
+    private static void writeOctal(byte[] header, int offset, int length, long value) {
+        String octal = String.format("%0" + (length - 1) + "o", value);
+        System.arraycopy(octal.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+        header[offset + length - 1] = 0;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private record Response(int status, byte[] body, boolean keepAlive) {
+    }
+
+    /**
+     * Splits one output stream into lines, holding a partial line until its end arrives.
+     */
+    private static final class LineSplitter {
+
+        private final Consumer<String> lineConsumer;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        LineSplitter(Consumer<String> lineConsumer) {
+            this.lineConsumer = lineConsumer;
+        }
+
+        void write(byte[] payload) {
+            for (byte b : payload) {
+                if (b == '\n') {
+                    lineConsumer.accept(line.toString(StandardCharsets.UTF_8));
+                    line.reset();
+                } else {
+                    line.write(b);
+                }
+            }
+        }
+
+        void flush() {
+            if (line.size() > 0) {
+                lineConsumer.accept(line.toString(StandardCharsets.UTF_8));
+                line.reset();
+            }
+        }
+    }
+
+    /**
+     * One HTTP/1.1 connection to the daemon socket.
+     */
+    private final class EngineConnection implements Closeable {
+
+        private final SocketChannel channel;
+        private final InputStream in;
+        private final OutputStream out;
+
+        EngineConnection() throws IOException {
+            this.channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+            this.in = new BufferedInputStream(Channels.newInputStream(channel));
+            this.out = Channels.newOutputStream(channel);
+        }
+
+        void writeRequest(String method, String path, byte[] body, String contentType) throws IOException {
+            StringBuilder request = new StringBuilder()
+                    .append(method).append(' ').append(API_VERSION).append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: docker\r\n");
+            if (body != null) {
+                request.append("Content-Type: ").append(contentType).append("\r\n")
+                        .append("Content-Length: ").append(body.length).append("\r\n");
+            }
+            request.append("\r\n");
+            out.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            if (body != null) {
+                out.write(body);
+            }
+            out.flush();
+        }
+
+        Response readResponse() throws IOException {
+            Map<String, String> headers = new HashMap<>();
+            int status = readStatusAndHeaders(headers);
+            boolean keepAlive = !"close".equalsIgnoreCase(headers.get("connection"));
+
+            byte[] body;
+            if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+                body = readChunkedBody();
+            } else if (headers.containsKey("content-length")) {
+                int length = Integer.parseInt(headers.get("content-length").trim());
+                body = in.readNBytes(length);
+                if (body.length < length) {
+                    throw new EOFException("Connection closed while reading the response body.");
+                }
+            } else if (status == 204 || status == 304) {
+                body = new byte[0];
+            } else {
+                body = in.readAllBytes();
+                keepAlive = false;
+            }
+            return new Response(status, body, keepAlive);
+        }
+
+        int readStatusAndHeaders(Map<String, String> headers) throws IOException {
+            String statusLine = readLine();
+            if (statusLine == null) {
+                throw new EOFException("Connection closed before the response status line.");
+            }
+            String[] parts = statusLine.split(" ", 3);
+            if (parts.length < 2) {
+                throw new IOException("Malformed status line: " + statusLine);
+            }
+            String header;
+            while ((header = readLine()) != null && !header.isEmpty()) {
+                int colon = header.indexOf(':');
+                if (colon > 0) {
+                    headers.put(header.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                            header.substring(colon + 1).trim());
+                }
+            }
+            return Integer.parseInt(parts[1]);
+        }
+
+        private byte[] readChunkedBody() throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            while (true) {
+                String sizeLine = readLine();
+                if (sizeLine == null) {
+                    throw new EOFException("Connection closed inside a chunked body.");
+                }
+                int semicolon = sizeLine.indexOf(';');
+                int size = Integer.parseInt((semicolon >= 0 ? sizeLine.substring(0, semicolon) : sizeLine).trim(), 16);
+                if (size == 0) {
+                    // Skip optional trailers up to the terminating empty line
+                    String trailer;
+                    while ((trailer = readLine()) != null && !trailer.isEmpty()) {
+                        log.debug("Ignoring trailer {}", trailer);
+                    }
+                    return body.toByteArray();
+                }
+                byte[] chunk = in.readNBytes(size);
+                if (chunk.length < size) {
+                    throw new EOFException("Connection closed inside a chunk.");
+                }
+                body.write(chunk);
+                readLine();
+            }
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    break;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            if (b == -1 && line.size() == 0) {
+                return null;
+            }
+            return line.toString(StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Error closing Docker socket connection: {}", e.getMessage());
+            }
+        }
+    }
+}
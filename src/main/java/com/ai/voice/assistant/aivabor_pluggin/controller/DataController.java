@@ -1,12 +1,25 @@
 package com.ai.voice.assistant.aivabor_pluggin.controller;
 
+import com.ai.voice.assistant.aivabor_pluggin.model.BulkJobStatus;
 import com.ai.voice.assistant.aivabor_pluggin.model.EnvironmentType;
+import com.ai.voice.assistant.aivabor_pluggin.model.JobTimeline;
+import com.ai.voice.assistant.aivabor_pluggin.request.BulkProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.request.ExportRequest;
 import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.request.SearchRequest;
+import com.ai.voice.assistant.aivabor_pluggin.service.BulkProcessingService;
+import com.ai.voice.assistant.aivabor_pluggin.service.ChangeSyncService;
 import com.ai.voice.assistant.aivabor_pluggin.service.DataProcessingFacadeService;
+import com.ai.voice.assistant.aivabor_pluggin.service.JobProfilingService;
+import com.ai.voice.assistant.aivabor_pluggin.service.VectorExportService;
+import com.ai.voice.assistant.aivabor_pluggin.service.VectorSearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controller for data processing endpoints.
  */
@@ -16,6 +29,11 @@ import org.springframework.web.bind.annotation.*;
 public class DataController {
 
     private final DataProcessingFacadeService dataProcessingFacadeService;
+    private final ChangeSyncService changeSyncService;
+    private final VectorSearchService vectorSearchService;
+    private final VectorExportService vectorExportService;
+    private final JobProfilingService jobProfilingService;
+    private final BulkProcessingService bulkProcessingService;
 
     /**
      * Endpoint to process data when the database is running in Docker.
@@ -41,15 +59,184 @@ public class DataController {
         return processData(request, EnvironmentType.SANDBOX_WINDOWS);
     }
 
+    /**
+     * Endpoint to start embedding several tables of a database running in Docker.
+     */
+    @PostMapping("/process/bulk/docker")
+    public ResponseEntity<?> processBulkDocker(@RequestBody BulkProcessRequest request) {
+        return processBulk(request, EnvironmentType.DOCKER);
+    }
+
+    /**
+     * Endpoint to start embedding several tables of a database running on a sandbox Linux.
+     */
+    @PostMapping("/process/bulk/sandbox/linux")
+    public ResponseEntity<?> processBulkSandboxLinux(@RequestBody BulkProcessRequest request) {
+        return processBulk(request, EnvironmentType.SANDBOX_LINUX);
+    }
+
+    /**
+     * Endpoint to start embedding several tables of a database running on a sandbox Windows.
+     */
+    @PostMapping("/process/bulk/sandbox/windows")
+    public ResponseEntity<?> processBulkSandboxWindows(@RequestBody BulkProcessRequest request) {
+        return processBulk(request, EnvironmentType.SANDBOX_WINDOWS);
+    }
+
+    /**
+     * Endpoint to report the per-table progress of a bulk job.
+     */
+    @GetMapping("/process/bulk/{bulkJobId}")
+    public ResponseEntity<BulkJobStatus> getBulkStatus(@PathVariable String bulkJobId) {
+        BulkJobStatus status = bulkProcessingService.getStatus(bulkJobId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Endpoint to list the retained bulk jobs.
+     */
+    @GetMapping("/process/bulk")
+    public ResponseEntity<List<BulkJobStatus>> getBulkStatuses() {
+        return ResponseEntity.ok(bulkProcessingService.getStatuses());
+    }
+
+    /**
+     * Endpoint to plan a job from the source table's catalog statistics without running it.
+     */
+    @PostMapping("/plan")
+    public ResponseEntity<?> plan(@RequestBody ProcessRequest request) {
+        try {
+            return ResponseEntity.ok(dataProcessingFacadeService.planData(request));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to plan: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to find the rows whose embeddings are closest to a query text.
+     */
+    @PostMapping("/search")
+    public ResponseEntity<?> search(@RequestBody SearchRequest request) {
+        try {
+            return ResponseEntity.ok(vectorSearchService.search(request));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to search: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to export an existing vector table to a columnar vector file.
+     */
+    @PostMapping("/export")
+    public ResponseEntity<String> export(@RequestBody ExportRequest request) {
+        try {
+            int count = vectorExportService.exportTable(request);
+            return ResponseEntity.ok("Exported " + count + " vectors to " + request.getFileName() + ".");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to export: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to list the finished jobs held by the JFR recording.
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<?> listJobs() {
+        try {
+            return ResponseEntity.ok(jobProfilingService.listJobs());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to read the job recording: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to summarize a finished job's JFR events into a per-stage time breakdown.
+     */
+    @GetMapping("/jobs/{jobId}/timeline")
+    public ResponseEntity<?> getJobTimeline(@PathVariable String jobId) {
+        try {
+            JobTimeline timeline = jobProfilingService.getTimeline(jobId);
+            return timeline != null ? ResponseEntity.ok(timeline) : ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to read the job recording: " + e.getMessage());
+        }
+    }
+
     /**
      * Generic method to process data based on environment type.
      */
     private ResponseEntity<String> processData(ProcessRequest request, EnvironmentType environmentType) {
         try {
-            dataProcessingFacadeService.processData(request, environmentType);
-            return ResponseEntity.ok("Data processing and insertion completed.");
+            String jobId = dataProcessingFacadeService.processData(request, environmentType);
+            return ResponseEntity.ok("Data processing and insertion completed. Job id: " + jobId);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to process data: " + e.getMessage());
         }
     }
+
+    /**
+     * Generic method to start a bulk job based on environment type.
+     */
+    private ResponseEntity<?> processBulk(BulkProcessRequest request, EnvironmentType environmentType) {
+        try {
+            return ResponseEntity.ok(bulkProcessingService.start(request, environmentType));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to start bulk processing: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to start watermark-driven sync when the database is running in Docker.
+     */
+    @PostMapping("/sync/docker")
+    public ResponseEntity<String> startSyncDocker(@RequestBody ProcessRequest request) {
+        return startSync(request, EnvironmentType.DOCKER);
+    }
+
+    /**
+     * Endpoint to start watermark-driven sync when the database is running on a sandbox Linux.
+     */
+    @PostMapping("/sync/sandbox/linux")
+    public ResponseEntity<String> startSyncSandboxLinux(@RequestBody ProcessRequest request) {
+        return startSync(request, EnvironmentType.SANDBOX_LINUX);
+    }
+
+    /**
+     * Endpoint to start watermark-driven sync when the database is running on a sandbox Windows.
+     */
+    @PostMapping("/sync/sandbox/windows")
+    public ResponseEntity<String> startSyncSandboxWindows(@RequestBody ProcessRequest request) {
+        return startSync(request, EnvironmentType.SANDBOX_WINDOWS);
+    }
+
+    /**
+     * Endpoint to stop the sync of a table.
+     */
+    @DeleteMapping("/sync")
+    public ResponseEntity<String> stopSync(@RequestParam String url, @RequestParam String tableName) {
+        if (changeSyncService.stopSync(url, tableName)) {
+            return ResponseEntity.ok("Sync stopped.");
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Endpoint to list running syncs and their watermarks.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<Map<String, String>> getSyncStatus() {
+        return ResponseEntity.ok(changeSyncService.getSyncStatus());
+    }
+
+    /**
+     * Generic method to start sync based on environment type.
+     */
+    private ResponseEntity<String> startSync(ProcessRequest request, EnvironmentType environmentType) {
+        try {
+            changeSyncService.startSync(request, environmentType);
+            return ResponseEntity.ok("Initial load completed; sync started.");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to start sync: " + e.getMessage());
+        }
+    }
 }
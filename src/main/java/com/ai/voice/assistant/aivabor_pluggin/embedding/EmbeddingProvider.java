@@ -0,0 +1,14 @@
+package com.ai.voice.assistant.aivabor_pluggin.embedding;
+
+/**
+ * Turns the combined text of a row into an embedding of a fixed number of dimensions.
+ */
+public interface EmbeddingProvider {
+
+    float[] embed(String text) throws Exception;
+
+    /**
+     * Dimensions of every embedding, which also size the vector columns.
+     */
+    int getDimensions();
+}
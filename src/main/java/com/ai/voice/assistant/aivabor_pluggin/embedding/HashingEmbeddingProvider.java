@@ -0,0 +1,212 @@
+package com.ai.voice.assistant.aivabor_pluggin.embedding;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Local, deterministic embedder based on feature hashing; needs no model and no network.
+ * <p>
+ * The text is lower-cased and split into words. Each word, each pair of adjacent words and each
+ * character trigram of a word (with boundary markers) is hashed to a dimension and a sign, and the
+ * signed weights are summed, so texts sharing words and word parts end up close. The vector is
+ * L2-normalized unless {@code aivabor.embedding.normalize} is off. Texts longer than
+ * {@link #SEQUENTIAL_TOKENS} words are split into ranges hashed in parallel on a fork/join pool.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "aivabor.embedding.provider", havingValue = "hashing", matchIfMissing = true)
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    // Below this many words a text is hashed on the calling thread
+    private static final int SEQUENTIAL_TOKENS = 2048;
+    // pgvector's limit for the vector type
+    private static final int MAX_DIMENSIONS = 16000;
+
+    private static final long WORD_SEED = 0x9E3779B97F4A7C15L;
+    private static final long TRIGRAM_SEED = 0xC2B2AE3D27D4EB4FL;
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float BIGRAM_WEIGHT = 0.7f;
+    private static final float TRIGRAM_WEIGHT = 0.4f;
+
+    private final int dimensions;
+    private final boolean normalize;
+    private final int sequentialTokens;
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public HashingEmbeddingProvider(@Value("${aivabor.embedding.dimensions:1536}") int dimensions,
+                                    @Value("${aivabor.embedding.normalize:true}") boolean normalize,
+                                    @Value("${aivabor.embedding.parallelism:0}") int parallelism) {
+        this(dimensions, normalize, parallelism, SEQUENTIAL_TOKENS);
+    }
+
+    HashingEmbeddingProvider(int dimensions, boolean normalize, int parallelism, int sequentialTokens) {
+        if (dimensions < 1 || dimensions > MAX_DIMENSIONS) {
+            throw new IllegalArgumentException("aivabor.embedding.dimensions must be in [1, " + MAX_DIMENSIONS + "]: "
+                    + dimensions);
+        }
+        this.dimensions = dimensions;
+        this.normalize = normalize;
+        this.sequentialTokens = sequentialTokens;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        log.info("Using the local hashing embedder ({} dimensions).", dimensions);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        String[] tokens = tokenize(text);
+        long[] tokenHashes = new long[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            tokenHashes[i] = hash(WORD_SEED, tokens[i]);
+        }
+
+        float[] embedding = tokens.length <= sequentialTokens
+                ? hashRange(tokens, tokenHashes, 0, tokens.length)
+                : pool.invoke(new HashTask(tokens, tokenHashes, 0, tokens.length));
+        if (normalize) {
+            normalize(embedding);
+        }
+        return embedding;
+    }
+
+    @Override
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Sums the features of the words in [from, to). A word's bigram uses the word before it,
+     * even across range boundaries, so the result does not depend on how the text is split.
+     */
+    private float[] hashRange(String[] tokens, long[] tokenHashes, int from, int to) {
+        float[] embedding = new float[dimensions];
+        for (int i = from; i < to; i++) {
+            add(embedding, tokenHashes[i], WORD_WEIGHT);
+            if (i > 0) {
+                add(embedding, mix(tokenHashes[i - 1] * WORD_SEED + tokenHashes[i]), BIGRAM_WEIGHT);
+            }
+            String token = "<" + tokens[i] + ">";
+            for (int start = 0; start + 3 <= token.length(); start++) {
+                add(embedding, hash(TRIGRAM_SEED, token, start, start + 3), TRIGRAM_WEIGHT);
+            }
+        }
+        return embedding;
+    }
+
+    /**
+     * Adds the weight to the dimension picked by the hash, with the sign taken from its lowest bit
+     * so that collisions cancel out on average instead of accumulating.
+     */
+    private void add(float[] embedding, long hash, float weight) {
+        int dimension = (int) Long.remainderUnsigned(hash >>> 1, dimensions);
+        embedding[dimension] += (hash & 1) == 0 ? weight : -weight;
+    }
+
+    private static void normalize(float[] embedding) {
+        double sum = 0;
+        for (float value : embedding) {
+            sum += (double) value * value;
+        }
+        if (sum > 0) {
+            float scale = (float) (1 / Math.sqrt(sum));
+            for (int i = 0; i < embedding.length; i++) {
+                embedding[i] *= scale;
+            }
+        }
+    }
+
+    /**
+     * Splits the lower-cased text into runs of letters and digits.
+     */
+    private static String[] tokenize(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static long hash(long seed, String s) {
+        return hash(seed, s, 0, s.length());
+    }
+
+    /**
+     * FNV-1a over the characters in [from, to), finished with a 64-bit mixer.
+     */
+    private static long hash(long seed, String s, int from, int to) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (int i = from; i < to; i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Hashes a range of words, splitting it in halves until ranges are small enough.
+     */
+    private class HashTask extends RecursiveTask<float[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] tokens;
+        private final long[] tokenHashes;
+        private final int from;
+        private final int to;
+
+        HashTask(String[] tokens, long[] tokenHashes, int from, int to) {
+            this.tokens = tokens;
+            this.tokenHashes = tokenHashes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected float[] compute() {
+            if (to - from <= sequentialTokens) {
+                return hashRange(tokens, tokenHashes, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            HashTask left = new HashTask(tokens, tokenHashes, from, mid);
+            left.fork();
+            float[] right = new HashTask(tokens, tokenHashes, mid, to).compute();
+            float[] sum = left.join();
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += right[i];
+            }
+            return sum;
+        }
+    }
+}
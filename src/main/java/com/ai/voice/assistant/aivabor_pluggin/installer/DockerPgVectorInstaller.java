@@ -6,6 +6,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
+import java.util.Optional;
+
 /**
  * Concrete strategy for installing pgvector in Docker environment.
  */
@@ -15,6 +18,7 @@ import org.springframework.stereotype.Component;
 public class DockerPgVectorInstaller implements PgVectorInstaller {
 
     private final DockerService dockerService;
+    private final PgVectorBundleLocator bundleLocator;
 
     @Override
     public void installPgVector(ProcessRequest request) throws Exception {
@@ -26,6 +30,10 @@ public class DockerPgVectorInstaller implements PgVectorInstaller {
         String osInsideContainer = dockerService.getContainerOS(containerName);
         log.info("OS inside the Docker container: {}", osInsideContainer);
 
+        if (installFromBundle(containerName, osInsideContainer)) {
+            return;
+        }
+
         boolean success;
 
         if (osInsideContainer.toLowerCase().contains("debian") || osInsideContainer.toLowerCase().contains("ubuntu")) {
@@ -33,7 +41,7 @@ public class DockerPgVectorInstaller implements PgVectorInstaller {
             String[] commands = {
                     "apt-get update",
                     "apt-get install -y git build-essential postgresql-server-dev-all",
-                    "git clone --branch v0.4.2 https://github.com/pgvector/pgvector /tmp/pgvector",
+                    "git clone --branch v0.7.4 https://github.com/pgvector/pgvector /tmp/pgvector",
                     "cd /tmp/pgvector && make && make install"
             };
             success = dockerService.executeCommandsInContainer(containerName, commands);
@@ -41,7 +49,7 @@ public class DockerPgVectorInstaller implements PgVectorInstaller {
             // Alpine-based
             String[] commands = {
                     "apk add --no-cache git build-base postgresql-dev",
-                    "git clone --branch v0.4.2 https://github.com/pgvector/pgvector /tmp/pgvector",
+                    "git clone --branch v0.7.4 https://github.com/pgvector/pgvector /tmp/pgvector",
                     "cd /tmp/pgvector && make && make install"
             };
             success = dockerService.executeCommandsInContainer(containerName, commands);
@@ -50,7 +58,7 @@ public class DockerPgVectorInstaller implements PgVectorInstaller {
             String[] commands = {
                     "pacman -Syu --noconfirm",
                     "pacman -S --needed --noconfirm base-devel git postgresql-libs postgresql",
-                    "git clone https://github.com/pgvector/pgvector.git /tmp/pgvector",
+                    "git clone --branch v0.7.4 https://github.com/pgvector/pgvector /tmp/pgvector",
                     "cd /tmp/pgvector && make && make install"
             };
             success = dockerService.executeCommandsInContainer(containerName, commands);
@@ -62,4 +70,37 @@ public class DockerPgVectorInstaller implements PgVectorInstaller {
             throw new Exception("Failed to install pgvector in the Docker container.");
         }
     }
+
+    /**
+     * Copies a prebuilt pgvector bundle matching the container's PostgreSQL version and
+     * architecture into it. Returns false if no bundle is available.
+     */
+    private boolean installFromBundle(String containerName, String osInsideContainer) throws Exception {
+        String[] info;
+        try {
+            info = dockerService.getCommandOutputInContainer(containerName,
+                    "pg_config --version && pg_config --pkglibdir && pg_config --sharedir && uname -m").split("\n");
+        } catch (Exception e) {
+            log.warn("Could not read pg_config output from the container; building pgvector from source. {}",
+                    e.getMessage());
+            return false;
+        }
+        if (info.length < 4) {
+            return false;
+        }
+        int pgMajorVersion = PgVectorBundleLocator.parseMajorVersion(info[0]);
+        String arch = info[3].trim() + (osInsideContainer.toLowerCase().contains("alpine") ? "-musl" : "");
+
+        Optional<Path> bundle = bundleLocator.findBundle(pgMajorVersion, arch);
+        if (bundle.isEmpty()) {
+            return false;
+        }
+        boolean success = dockerService.copyToContainer(containerName, bundle.get().resolve("lib"), info[1].trim())
+                && dockerService.copyToContainer(containerName, bundle.get().resolve("extension"),
+                info[2].trim() + "/extension");
+        if (!success) {
+            throw new Exception("Failed to copy the pgvector bundle into the Docker container.");
+        }
+        return true;
+    }
 }
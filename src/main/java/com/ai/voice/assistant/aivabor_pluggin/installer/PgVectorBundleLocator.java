@@ -0,0 +1,73 @@
+package com.ai.voice.assistant.aivabor_pluggin.installer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Locates prebuilt pgvector bundles so installers can copy them instead of compiling from source.
+ * <p>
+ * A bundle lives in {@code <dir>/pg<major>-<arch>/} (e.g. {@code pgvector/pg16-x86_64/}) and contains
+ * {@code lib/vector.so} plus an {@code extension/} directory with {@code vector.control} and the
+ * {@code vector--*.sql} scripts. The bundle directory is searched before the local artifact cache.
+ */
+@Component
+@Slf4j
+public class PgVectorBundleLocator {
+
+    private final List<Path> searchDirs;
+
+    public PgVectorBundleLocator(@Value("${aivabor.pgvector.bundle-dir:pgvector}") String bundleDir,
+                                 @Value("${aivabor.pgvector.cache-dir:${user.home}/.cache/aivabor/pgvector}") String cacheDir) {
+        this.searchDirs = List.of(Path.of(bundleDir), Path.of(cacheDir));
+    }
+
+    /**
+     * Finds the bundle for the given PostgreSQL major version and machine architecture.
+     */
+    public Optional<Path> findBundle(int pgMajorVersion, String arch) {
+        String key = "pg" + pgMajorVersion + "-" + normalizeArch(arch);
+        for (Path dir : searchDirs) {
+            Path candidate = dir.resolve(key);
+            if (Files.isRegularFile(candidate.resolve("lib").resolve("vector.so"))
+                    && Files.isDirectory(candidate.resolve("extension"))) {
+                log.info("Using prebuilt pgvector bundle {}", candidate.toAbsolutePath());
+                return Optional.of(candidate);
+            }
+        }
+        log.info("No prebuilt pgvector bundle '{}' found in {}", key, searchDirs);
+        return Optional.empty();
+    }
+
+    /**
+     * Parses the major version out of {@code pg_config --version} output, e.g. "PostgreSQL 14.1".
+     */
+    public static int parseMajorVersion(String pgConfigVersion) throws Exception {
+        String version = pgConfigVersion.trim().replaceFirst("^PostgreSQL\\s+", "");
+        int end = 0;
+        while (end < version.length() && Character.isDigit(version.charAt(end))) {
+            end++;
+        }
+        if (end == 0) {
+            throw new Exception("Could not parse PostgreSQL version: " + pgConfigVersion);
+        }
+        return Integer.parseInt(version.substring(0, end));
+    }
+
+    private String normalizeArch(String arch) {
+        String normalized = arch.trim().toLowerCase();
+        switch (normalized) {
+            case "amd64":
+                return "x86_64";
+            case "arm64":
+                return "aarch64";
+            default:
+                return normalized;
+        }
+    }
+}
@@ -1,21 +1,31 @@
 package com.ai.voice.assistant.aivabor_pluggin.installer;
 
 import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.Optional;
 
 /**
  * Concrete strategy for installing pgvector in Sandbox Linux environment.
  */
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class SandboxLinuxPgVectorInstaller implements PgVectorInstaller {
 
+    private final PgVectorBundleLocator bundleLocator;
+
     @Override
     public void installPgVector(ProcessRequest request) throws Exception {
+        if (installFromBundle()) {
+            return;
+        }
+
         String distro = getLinuxDistro();
         log.info("Linux distribution detected: {}", distro);
 
@@ -26,7 +36,7 @@ public class SandboxLinuxPgVectorInstaller implements PgVectorInstaller {
             String[] commands = {
                     "sudo apt-get update",
                     "sudo apt-get install -y git build-essential postgresql-server-dev-all",
-                    "git clone --branch v0.4.2 https://github.com/pgvector/pgvector /tmp/pgvector",
+                    "git clone --branch v0.7.4 https://github.com/pgvector/pgvector /tmp/pgvector",
                     "cd /tmp/pgvector && make && sudo make install"
             };
             success = executeShellCommands(commands);
@@ -35,7 +45,7 @@ public class SandboxLinuxPgVectorInstaller implements PgVectorInstaller {
             String[] commands = {
                     "sudo pacman -Syu --noconfirm",
                     "sudo pacman -S --needed --noconfirm base-devel git postgresql-libs postgresql",
-                    "git clone https://github.com/pgvector/pgvector.git /tmp/pgvector",
+                    "git clone --branch v0.7.4 https://github.com/pgvector/pgvector /tmp/pgvector",
                     "cd /tmp/pgvector && make && sudo make install"
             };
             success = executeShellCommands(commands);
@@ -48,6 +58,53 @@ public class SandboxLinuxPgVectorInstaller implements PgVectorInstaller {
         }
     }
 
+    /**
+     * Copies a prebuilt pgvector bundle matching the host's PostgreSQL version and
+     * architecture into place. Returns false if no bundle is available.
+     */
+    private boolean installFromBundle() throws Exception {
+        String[] info = getShellCommandOutput(
+                "pg_config --version && pg_config --pkglibdir && pg_config --sharedir && uname -m").split("\n");
+        if (info.length < 4) {
+            log.warn("Could not read pg_config output; building pgvector from source.");
+            return false;
+        }
+        int pgMajorVersion = PgVectorBundleLocator.parseMajorVersion(info[0]);
+
+        Optional<Path> bundle = bundleLocator.findBundle(pgMajorVersion, info[3].trim());
+        if (bundle.isEmpty()) {
+            return false;
+        }
+        String[] commands = {
+                "sudo cp -r '" + bundle.get().resolve("lib").toAbsolutePath() + "/.' '" + info[1].trim() + "'",
+                "sudo cp -r '" + bundle.get().resolve("extension").toAbsolutePath() + "/.' '" + info[2].trim() + "/extension'"
+        };
+        if (!executeShellCommands(commands)) {
+            throw new Exception("Failed to copy the pgvector bundle on the host system.");
+        }
+        return true;
+    }
+
+    /**
+     * Executes a shell command on the host system and returns its output, or an empty string on failure.
+     */
+    private String getShellCommandOutput(String command) {
+        try {
+            ProcessBuilder pb = new ProcessBuilder("/bin/sh", "-c", command);
+            pb.redirectErrorStream(true);
+            Process process = pb.start();
+            String output = new String(process.getInputStream().readAllBytes());
+            if (process.waitFor() != 0) {
+                log.warn("Shell command '{}' failed. Output:\n{}", command, output);
+                return "";
+            }
+            return output;
+        } catch (Exception e) {
+            log.error("Error executing shell command: {}", e.getMessage());
+            return "";
+        }
+    }
+
     /**
      * Executes shell commands on the host system.
      */
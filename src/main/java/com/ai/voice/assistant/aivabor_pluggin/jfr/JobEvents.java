@@ -0,0 +1,106 @@
+package com.ai.voice.assistant.aivabor_pluggin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR events for a processing job and the setup steps that run before its load.
+ */
+public final class JobEvents {
+
+    private JobEvents() {
+    }
+
+    @Name("aivabor.Job")
+    @Label("Processing Job")
+    @Description("A processing job from connection setup to the last committed batch")
+    @Category({"AIVABOR", "Job"})
+    @StackTrace(false)
+    public static final class Job extends Event {
+
+        @Label("Job Id")
+        public String jobId;
+
+        @Label("Table")
+        public String table;
+
+        @Label("Environment")
+        public String environment;
+
+        @Label("Write Mode")
+        public String writeMode;
+
+        @Label("Status")
+        public String status;
+    }
+
+    @Name("aivabor.DataSourceInit")
+    @Label("Data Source Init")
+    @Description("Opening or reusing the source and target connection pools")
+    @Category({"AIVABOR", "Setup"})
+    @StackTrace(false)
+    public static final class DataSourceInit extends Event {
+
+        // Null unless the pools are set up for a processing job
+        @Label("Job Id")
+        public String jobId;
+
+        @Label("URL")
+        public String url;
+
+        @Label("Dialect")
+        public String dialect;
+
+        @Label("Target URL")
+        public String targetUrl;
+
+        @Label("Target Dialect")
+        public String targetDialect;
+
+        @Label("Pool Reused")
+        public boolean reused;
+    }
+
+    @Name("aivabor.PgVectorInstall")
+    @Label("pgvector Install")
+    @Description("Checking, installing and enabling the pgvector extension")
+    @Category({"AIVABOR", "Setup"})
+    @StackTrace(false)
+    public static final class PgVectorInstall extends Event {
+
+        // Id of the processing job, or of the bulk job for its shared check
+        @Label("Job Id")
+        public String jobId;
+
+        @Label("URL")
+        public String url;
+
+        @Label("Environment")
+        public String environment;
+
+        // One of cached, installed-already, enabled or installed
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    /**
+     * Strips the query string and driver properties from a JDBC URL, since they may carry credentials.
+     */
+    public static String redactUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        int end = url.length();
+        for (char separator : new char[]{'?', ';'}) {
+            int index = url.indexOf(separator);
+            if (index >= 0) {
+                end = Math.min(end, index);
+            }
+        }
+        return url.substring(0, end);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ai.voice.assistant.aivabor_pluggin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR events for the stages of loading a batch of vectors.
+ * <p>
+ * Reading, projection, embedding and encoding interleave row by row, so their events are emitted
+ * once per batch: the event spans the batch and {@code stageTime} holds the part spent in the stage.
+ */
+public final class LoadStageEvents {
+
+    private LoadStageEvents() {
+    }
+
+    @Category({"AIVABOR", "Load"})
+    @StackTrace(false)
+    abstract static class StageEvent extends Event {
+
+        // Null for the stages of a sync poll
+        @Label("Job Id")
+        String jobId;
+
+        @Label("Table")
+        String table;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Stage Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long stageTime;
+    }
+
+    @Name("aivabor.ReadBatch")
+    @Label("Read Batch")
+    @Description("Fetching source rows from the result set")
+    public static final class ReadBatch extends StageEvent {
+    }
+
+    @Name("aivabor.RowProjection")
+    @Label("Row Projection")
+    @Description("Combining the requested fields into the text to embed; bytes are characters of text")
+    public static final class RowProjection extends StageEvent {
+    }
+
+    @Name("aivabor.Embedding")
+    @Label("Embedding")
+    @Description("Embedding calls, including near-duplicate lookups")
+    public static final class Embedding extends StageEvent {
+    }
+
+    @Name("aivabor.Encoding")
+    @Label("Encoding")
+    @Description("Binding embeddings and quantized codes to the write statement")
+    public static final class Encoding extends StageEvent {
+    }
+
+    @Name("aivabor.WriteBatch")
+    @Label("Write Batch")
+    @Description("Executing the JDBC batch")
+    public static final class WriteBatch extends StageEvent {
+    }
+
+    @Name("aivabor.Commit")
+    @Label("Commit")
+    @Description("Committing a written batch")
+    public static final class Commit extends StageEvent {
+    }
+}
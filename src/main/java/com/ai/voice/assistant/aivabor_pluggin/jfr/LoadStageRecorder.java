@@ -0,0 +1,89 @@
+package com.ai.voice.assistant.aivabor_pluggin.jfr;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates per-row stage timings of one loader and emits them as {@link LoadStageEvents} per batch.
+ * Not thread-safe; use one instance per loader.
+ */
+public class LoadStageRecorder {
+
+    public enum Stage {
+        READ,
+        PROJECTION,
+        EMBEDDING,
+        ENCODING
+    }
+
+    private final String jobId;
+    private final String table;
+    private final long[] stageTimes = new long[Stage.values().length];
+    private final long[] stageBytes = new long[Stage.values().length];
+
+    private LoadStageEvents.StageEvent[] batchEvents;
+    private long mark;
+
+    public LoadStageRecorder(String jobId, String table) {
+        this.jobId = jobId;
+        this.table = table;
+        startBatch();
+    }
+
+    /**
+     * Attributes the time since the previous lap to the stage.
+     */
+    public void lap(Stage stage, long bytes) {
+        long now = System.nanoTime();
+        stageTimes[stage.ordinal()] += now - mark;
+        stageBytes[stage.ordinal()] += bytes;
+        mark = now;
+    }
+
+    /**
+     * Emits the events of a flushed batch, given the timestamps around its execute and commit,
+     * and starts the next batch.
+     */
+    public void recordFlush(int rows, long writeStart, long commitStart, long commitEnd) {
+        for (Stage stage : Stage.values()) {
+            LoadStageEvents.StageEvent event = batchEvents[stage.ordinal()];
+            if (event.shouldCommit()) {
+                event.jobId = jobId;
+                event.table = table;
+                event.rows = rows;
+                event.bytes = stageBytes[stage.ordinal()];
+                event.stageTime = stageTimes[stage.ordinal()];
+                event.commit();
+            }
+        }
+        long encodedBytes = stageBytes[Stage.ENCODING.ordinal()];
+        commitStageEvent(new LoadStageEvents.WriteBatch(), rows, encodedBytes, commitStart - writeStart);
+        commitStageEvent(new LoadStageEvents.Commit(), rows, 0, commitEnd - commitStart);
+        startBatch();
+    }
+
+    private void commitStageEvent(LoadStageEvents.StageEvent event, int rows, long bytes, long stageTime) {
+        if (event.isEnabled()) {
+            event.jobId = jobId;
+            event.table = table;
+            event.rows = rows;
+            event.bytes = bytes;
+            event.stageTime = stageTime;
+            event.commit();
+        }
+    }
+
+    private void startBatch() {
+        batchEvents = new LoadStageEvents.StageEvent[]{
+                new LoadStageEvents.ReadBatch(),
+                new LoadStageEvents.RowProjection(),
+                new LoadStageEvents.Embedding(),
+                new LoadStageEvents.Encoding()
+        };
+        for (LoadStageEvents.StageEvent event : batchEvents) {
+            event.begin();
+        }
+        Arrays.fill(stageTimes, 0);
+        Arrays.fill(stageBytes, 0);
+        mark = System.nanoTime();
+    }
+}
@@ -0,0 +1,33 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of a multi-table job, with its tables in scheduling order (largest first).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkJobStatus {
+    private String bulkJobId;
+    private Instant startTime;
+    private int concurrency;
+    private List<TableProgress> tables;
+
+    public long getCompleted() {
+        return tables.stream().filter(t -> t.getStatus() == TableJobStatus.COMPLETED).count();
+    }
+
+    public long getFailed() {
+        return tables.stream().filter(t -> t.getStatus() == TableJobStatus.FAILED).count();
+    }
+
+    public boolean isFinished() {
+        return getCompleted() + getFailed() == tables.size();
+    }
+}
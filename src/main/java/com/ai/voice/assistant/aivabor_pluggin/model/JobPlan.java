@@ -0,0 +1,36 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Pre-flight plan of a processing job, derived from the source table's catalog statistics.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JobPlan {
+    private String tableName;
+    private DatabaseDialect dialect;
+    private DatabaseDialect targetDialect;
+    // Catalog estimates; null when the table has no statistics yet
+    private Long estimatedRows;
+    private Long averageRowBytes;
+    private boolean idNumeric;
+    private boolean idIndexed;
+    private boolean idUnique;
+    private boolean vectorTableExists;
+    private ReadStrategy readStrategy;
+    private int partitions;
+    private int workers;
+    private int batchSize;
+    private WriteMode writeMode;
+    // Null when the row count is unknown
+    private Double estimatedSeconds;
+    private List<String> warnings;
+}
@@ -0,0 +1,23 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Per-stage time breakdown of a processing job, read from its JFR recording.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobTimeline {
+    private String jobId;
+    private String table;
+    private String status;
+    private Instant startTime;
+    private double durationMillis;
+    private List<StageTiming> stages;
+}
@@ -0,0 +1,13 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+/**
+ * Enum representing how the source rows of a job are read.
+ */
+public enum ReadStrategy {
+    // One streaming cursor over the whole table
+    STREAM,
+    // One reader per hash partition of the vector table, filtered in the source database
+    HASH_PARTITIONS,
+    // One reader per id modulo slice, for sources in another database than the partitioned target
+    ID_MODULO
+}
@@ -0,0 +1,16 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A source row id and its distance to the search query.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchResult {
+    private int id;
+    private double distance;
+}
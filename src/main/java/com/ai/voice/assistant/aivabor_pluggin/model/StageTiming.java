@@ -0,0 +1,21 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Time spent in one stage of a job, summed over its JFR events.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StageTiming {
+    private String stage;
+    private long events;
+    private double timeMillis;
+    // Share of the summed stage time; stages of parallel partition loads overlap in wall time
+    private double percent;
+    private long rows;
+    private long bytes;
+}
@@ -0,0 +1,11 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+/**
+ * Enum representing the state of one table in a bulk job.
+ */
+public enum TableJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,37 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of one table in a bulk job; updated by the worker loading it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TableProgress {
+    private String tableName;
+    private volatile TableJobStatus status;
+    private Long estimatedRows;
+    private WriteMode writeMode;
+    private int partitions;
+    // Id of the table's job, for /api/data/jobs/{jobId}/timeline
+    private volatile String jobId;
+    private volatile Instant startTime;
+    private volatile Double durationMillis;
+    private volatile String error;
+    // Rows read so far, failed ones included
+    private volatile long rowsDone;
+    // The planner's estimate until the table is loaded, then the rows actually read
+    private volatile Long rowsTotal;
+
+    /**
+     * Adds rows read by one of the table's loaders; partition workers report concurrently.
+     */
+    public synchronized void addRowsDone(long rows) {
+        rowsDone += rows;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+/**
+ * Enum representing the compact code stored next to each full-precision embedding.
+ */
+public enum VectorQuantization {
+    // Full-precision embeddings only
+    NONE,
+    // 16-bit floats (halfvec on PostgreSQL)
+    HALF,
+    // One signed byte per dimension plus a per-vector scale; not available on PostgreSQL
+    INT8,
+    // One sign bit per dimension (bit on PostgreSQL)
+    BINARY
+}
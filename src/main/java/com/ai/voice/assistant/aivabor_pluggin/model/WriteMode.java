@@ -0,0 +1,11 @@
+package com.ai.voice.assistant.aivabor_pluggin.model;
+
+/**
+ * Enum representing how embeddings are written to the vector table.
+ */
+public enum WriteMode {
+    // Upserts into the live table, keyed on the source id
+    INCREMENTAL,
+    // Loads a fresh staging table and atomically swaps it in
+    REBUILD
+}
@@ -0,0 +1,33 @@
+package com.ai.voice.assistant.aivabor_pluggin.request;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+import com.ai.voice.assistant.aivabor_pluggin.model.WriteMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkProcessRequest {
+    private String dockerContainerName;
+    private String url;
+    private String username;
+    private String password;
+    private String targetUrl;
+    private String targetUsername;
+    private String targetPassword;
+    // Id column of tables that do not name their own
+    private String idName;
+    private List<TableProcessRequest> tables;
+    // Applied to every table; unset settings are chosen per table by the planner
+    private WriteMode writeMode;
+    private VectorQuantization quantization;
+    private Double nearDuplicateThreshold;
+    // Tables loaded at the same time; defaults to aivabor.bulk.max-concurrent-tables
+    private Integer maxConcurrentTables;
+}
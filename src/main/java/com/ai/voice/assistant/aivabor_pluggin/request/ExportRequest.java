@@ -0,0 +1,23 @@
+package com.ai.voice.assistant.aivabor_pluggin.request;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExportRequest {
+    private String url;
+    private String username;
+    private String password;
+    private String tableName;
+    private String idName;
+    // File name within aivabor.export.dir
+    private String fileName;
+    // Encoding of the exported rows; defaults to NONE (float32)
+    private VectorQuantization quantization;
+}
@@ -1,5 +1,7 @@
 package com.ai.voice.assistant.aivabor_pluggin.request;
 
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+import com.ai.voice.assistant.aivabor_pluggin.model.WriteMode;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,7 +17,27 @@ public class ProcessRequest {
     private String url;
     private String username;
     private String password;
+    // Optional database for the vector table, e.g. PostgreSQL with pgvector next to a MySQL source
+    private String targetUrl;
+    private String targetUsername;
+    private String targetPassword;
     private String tableName;
     private String idName;
     private List<String> fields;
+    // Optional Jaccard threshold in (0, 1]; when set, near-duplicate rows reuse one embedding
+    private Double nearDuplicateThreshold;
+    // Monotonic column (e.g. updated_at) used by sync mode to find changed rows
+    private String watermarkColumn;
+    private Integer syncIntervalSeconds;
+    // Defaults to INCREMENTAL
+    private WriteMode writeMode;
+    // PostgreSQL only: number of hash partitions of the vector table
+    private Integer partitions;
+    // Initial write batch size, tuned from there; the planner derives one from the row width when unset
+    private Integer batchSize;
+    // Compact code stored in embedding_q next to the full-precision embedding; defaults to NONE
+    private VectorQuantization quantization;
+    // Optional file within aivabor.export.dir that the job's (id, embedding) pairs are also written to
+    private String exportFileName;
+    private VectorQuantization exportQuantization;
 }
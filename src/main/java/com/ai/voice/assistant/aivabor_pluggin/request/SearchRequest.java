@@ -0,0 +1,25 @@
+package com.ai.voice.assistant.aivabor_pluggin.request;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SearchRequest {
+    private String url;
+    private String username;
+    private String password;
+    private String tableName;
+    private String idName;
+    private String query;
+    private Integer topK;
+    // Quantization the vector table was built with; codes are scanned first, then re-ranked
+    private VectorQuantization quantization;
+    // Candidates taken from the code scan for full-precision re-ranking; defaults to 4 * topK
+    private Integer candidates;
+}
@@ -12,5 +12,7 @@ import java.util.List;
 @Builder
 public class TableProcessRequest {
     private String tableName;
+    // Defaults to the idName of the bulk request
+    private String idName;
     private List<String> fields;
 }
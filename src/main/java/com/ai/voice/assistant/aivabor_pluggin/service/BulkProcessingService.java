@@ -0,0 +1,228 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.BulkJobStatus;
+import com.ai.voice.assistant.aivabor_pluggin.model.EnvironmentType;
+import com.ai.voice.assistant.aivabor_pluggin.model.JobPlan;
+import com.ai.voice.assistant.aivabor_pluggin.model.TableJobStatus;
+import com.ai.voice.assistant.aivabor_pluggin.model.TableProgress;
+import com.ai.voice.assistant.aivabor_pluggin.request.BulkProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.request.TableProcessRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Service for embedding many tables of one database in a single job.
+ * <p>
+ * The tables share one pair of connection pools, owned by the job, and one pgvector check. Each is planned up front, and they
+ * are loaded in the background largest first, so the longest table does not start last, with at
+ * most a fixed number of tables in flight.
+ */
+@Service
+@Slf4j
+public class BulkProcessingService {
+
+    private static final int MAX_RETAINED_JOBS = 50;
+
+    private final DataSourceService dataSourceService;
+    private final PgVectorService pgVectorService;
+    private final DataProcessingService dataProcessingService;
+    private final DataProcessingFacadeService dataProcessingFacadeService;
+    private final JobPlannerService jobPlannerService;
+    private final Integer defaultConcurrency;
+
+    // Insertion ordered, so the oldest finished jobs are evicted first
+    private final Map<String, BulkJob> bulkJobs = new LinkedHashMap<>();
+
+    public BulkProcessingService(DataSourceService dataSourceService,
+                                 PgVectorService pgVectorService,
+                                 DataProcessingService dataProcessingService,
+                                 DataProcessingFacadeService dataProcessingFacadeService,
+                                 JobPlannerService jobPlannerService,
+                                 @Value("${aivabor.bulk.max-concurrent-tables:#{null}}") Integer defaultConcurrency) {
+        this.dataSourceService = dataSourceService;
+        this.pgVectorService = pgVectorService;
+        this.dataProcessingService = dataProcessingService;
+        this.dataProcessingFacadeService = dataProcessingFacadeService;
+        this.jobPlannerService = jobPlannerService;
+        this.defaultConcurrency = defaultConcurrency;
+    }
+
+    /**
+     * Validates and plans all tables, opens the job's pools and prepares pgvector, then starts loading
+     * the tables in the background. Returns the initial status of the bulk job.
+     */
+    public BulkJobStatus start(BulkProcessRequest request, EnvironmentType environmentType) throws Exception {
+        if (request.getTables() == null || request.getTables().isEmpty()) {
+            throw new IllegalArgumentException("tables must not be empty.");
+        }
+        List<ProcessRequest> tableRequests = new ArrayList<>();
+        Set<String> tableNames = new HashSet<>();
+        for (TableProcessRequest table : request.getTables()) {
+            if (table.getFields() == null || table.getFields().isEmpty()) {
+                throw new IllegalArgumentException("fields are required for table " + table.getTableName());
+            }
+            if (!tableNames.add(table.getTableName())) {
+                throw new IllegalArgumentException("Table listed more than once: " + table.getTableName());
+            }
+            ProcessRequest tableRequest = toProcessRequest(request, table);
+            if (request.getTables().size() > 1) {
+                // Tables are loaded in parallel already; partition workers would oversubscribe the job's pool
+                tableRequest.setPartitions(1);
+            }
+            dataProcessingService.validateIdentifiers(tableRequest);
+            tableRequests.add(tableRequest);
+        }
+
+        String bulkJobId = UUID.randomUUID().toString();
+        // The job's own pools, closed after the last table; requests with other settings cannot touch them
+        JobDataSources dataSources = dataSourceService.openJobDataSources(tableRequests.get(0));
+        List<PlannedTable> plannedTables = new ArrayList<>();
+        try {
+            pgVectorService.installPgVectorIfNeeded(tableRequests.get(0), dataSources, bulkJobId, environmentType);
+            for (ProcessRequest tableRequest : tableRequests) {
+                JobPlan plan = jobPlannerService.plan(tableRequest, dataSources);
+                TableProgress progress = new TableProgress(tableRequest.getTableName(), TableJobStatus.PENDING,
+                        plan.getEstimatedRows(), plan.getWriteMode(), plan.getPartitions(), null, null, null, null,
+                        0, plan.getEstimatedRows());
+                plannedTables.add(new PlannedTable(tableRequest, plan, progress));
+            }
+        } catch (Exception e) {
+            dataSources.close();
+            throw e;
+        }
+        // Largest first; tables without statistics last
+        plannedTables.sort(Comparator.comparing((PlannedTable t) -> t.plan.getEstimatedRows(),
+                Comparator.nullsLast(Comparator.reverseOrder())));
+
+        int concurrency = Math.min(plannedTables.size(), getConcurrency(request, dataSources));
+        BulkJobStatus status = new BulkJobStatus(bulkJobId, Instant.now(), concurrency,
+                plannedTables.stream().map(t -> t.progress).toList());
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        registerJob(new BulkJob(status, executor));
+
+        // A fixed pool takes queued tasks in submission order, so the largest tables start first
+        List<CompletableFuture<Void>> tables = new ArrayList<>();
+        for (PlannedTable table : plannedTables) {
+            tables.add(CompletableFuture.runAsync(() -> runTable(table, dataSources, environmentType), executor));
+        }
+        CompletableFuture.allOf(tables.toArray(CompletableFuture[]::new)).whenComplete((done, e) -> dataSources.close());
+        executor.shutdown();
+        log.info("Started bulk job {} for {} tables, {} at a time.", status.getBulkJobId(),
+                plannedTables.size(), concurrency);
+        return status;
+    }
+
+    /**
+     * Returns the status of a bulk job, or null if it is unknown.
+     */
+    public synchronized BulkJobStatus getStatus(String bulkJobId) {
+        BulkJob job = bulkJobs.get(bulkJobId);
+        return job != null ? job.status : null;
+    }
+
+    /**
+     * Returns the status of every retained bulk job.
+     */
+    public synchronized List<BulkJobStatus> getStatuses() {
+        return bulkJobs.values().stream().map(job -> job.status).toList();
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        bulkJobs.values().forEach(job -> job.executor.shutdownNow());
+    }
+
+    private void runTable(PlannedTable table, JobDataSources dataSources, EnvironmentType environmentType) {
+        TableProgress progress = table.progress;
+        progress.setStartTime(Instant.now());
+        progress.setStatus(TableJobStatus.RUNNING);
+        long start = System.nanoTime();
+        try {
+            progress.setJobId(dataProcessingFacadeService.processPlannedTable(table.request, table.plan, dataSources,
+                    environmentType, progress::addRowsDone));
+            progress.setRowsTotal(progress.getRowsDone());
+            progress.setStatus(TableJobStatus.COMPLETED);
+        } catch (Exception e) {
+            log.error("Bulk load of table '{}' failed: {}", progress.getTableName(), e.getMessage(), e);
+            progress.setError(e.getMessage());
+            progress.setStatus(TableJobStatus.FAILED);
+        } finally {
+            progress.setDurationMillis((System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * Defaults the concurrency to half the pool, as each loading table holds a read and a write connection.
+     */
+    private int getConcurrency(BulkProcessRequest request, JobDataSources dataSources) {
+        Integer concurrency = request.getMaxConcurrentTables() != null ? request.getMaxConcurrentTables() : defaultConcurrency;
+        if (concurrency == null) {
+            concurrency = Math.max(1, dataSources.getMaximumPoolSize() / 2);
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrentTables must be positive: " + concurrency);
+        }
+        return concurrency;
+    }
+
+    private synchronized void registerJob(BulkJob job) {
+        bulkJobs.put(job.status.getBulkJobId(), job);
+        bulkJobs.values().removeIf(retained -> bulkJobs.size() > MAX_RETAINED_JOBS && retained.status.isFinished());
+    }
+
+    private ProcessRequest toProcessRequest(BulkProcessRequest request, TableProcessRequest table) {
+        return ProcessRequest.builder()
+                .dockerContainerName(request.getDockerContainerName())
+                .url(request.getUrl())
+                .username(request.getUsername())
+                .password(request.getPassword())
+                .targetUrl(request.getTargetUrl())
+                .targetUsername(request.getTargetUsername())
+                .targetPassword(request.getTargetPassword())
+                .tableName(table.getTableName())
+                .idName(table.getIdName() != null ? table.getIdName() : request.getIdName())
+                .fields(table.getFields())
+                .writeMode(request.getWriteMode())
+                .quantization(request.getQuantization())
+                .nearDuplicateThreshold(request.getNearDuplicateThreshold())
+                .build();
+    }
+
+    private static class PlannedTable {
+        private final ProcessRequest request;
+        private final JobPlan plan;
+        private final TableProgress progress;
+
+        PlannedTable(ProcessRequest request, JobPlan plan, TableProgress progress) {
+            this.request = request;
+            this.plan = plan;
+            this.progress = progress;
+        }
+    }
+
+    private static class BulkJob {
+        private final BulkJobStatus status;
+        private final ExecutorService executor;
+
+        BulkJob(BulkJobStatus status, ExecutorService executor) {
+            this.status = status;
+            this.executor = executor;
+        }
+    }
+}
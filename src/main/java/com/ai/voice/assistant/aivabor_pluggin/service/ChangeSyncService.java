@@ -0,0 +1,139 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.EnvironmentType;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for continuous, watermark-driven synchronization of vector tables.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChangeSyncService {
+
+    private static final int DEFAULT_SYNC_INTERVAL_SECONDS = 60;
+
+    private final DataSourceService dataSourceService;
+    private final DataProcessingService dataProcessingService;
+    private final DataProcessingFacadeService dataProcessingFacadeService;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final Map<String, SyncJob> syncJobs = new ConcurrentHashMap<>();
+
+    /**
+     * Runs a full load of the table and then polls it for rows whose watermark column advanced.
+     */
+    public void startSync(ProcessRequest request, EnvironmentType environmentType) throws Exception {
+        if (request.getWatermarkColumn() == null) {
+            throw new IllegalArgumentException("watermarkColumn is required for sync mode.");
+        }
+        dataProcessingService.validateIdentifiers(request);
+
+        String key = syncKey(request.getUrl(), request.getTableName());
+        // Reserved before the full load, so that concurrent starts of the same sync cannot both pass
+        SyncJob job = new SyncJob(request);
+        if (syncJobs.putIfAbsent(key, job) != null) {
+            throw new IllegalStateException("Sync is already running for " + key);
+        }
+
+        try {
+            // The sync owns its pools so that later jobs re-initializing the shared DataSource do not affect it
+            job.dataSources = dataSourceService.openJobDataSources(request);
+            // Captured before the full load so that rows changed while it runs are picked up by the first poll
+            job.watermark = dataProcessingService.getMaxWatermark(request, job.dataSources);
+            dataProcessingFacadeService.processData(request, job.dataSources, environmentType);
+
+            int interval = request.getSyncIntervalSeconds() != null
+                    ? request.getSyncIntervalSeconds()
+                    : DEFAULT_SYNC_INTERVAL_SECONDS;
+            synchronized (job) {
+                if (job.stopped) {
+                    throw new IllegalStateException("Sync of " + key + " was stopped while starting.");
+                }
+                job.future = scheduler.scheduleWithFixedDelay(() -> poll(job), interval, interval, TimeUnit.SECONDS);
+            }
+            log.info("Started sync of '{}' on '{}' every {}s.", request.getTableName(), request.getWatermarkColumn(), interval);
+        } catch (Exception e) {
+            syncJobs.remove(key, job);
+            job.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the sync of a table and releases its pool.
+     */
+    public boolean stopSync(String url, String tableName) {
+        SyncJob job = syncJobs.remove(syncKey(url, tableName));
+        if (job == null) {
+            return false;
+        }
+        job.close();
+        log.info("Stopped sync of '{}'.", tableName);
+        return true;
+    }
+
+    /**
+     * Returns the current watermark of every running sync.
+     */
+    public Map<String, String> getSyncStatus() {
+        Map<String, String> status = new LinkedHashMap<>();
+        syncJobs.forEach((key, job) -> status.put(key, String.valueOf(job.watermark)));
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        syncJobs.values().forEach(SyncJob::close);
+        syncJobs.clear();
+    }
+
+    private void poll(SyncJob job) {
+        try {
+            job.watermark = dataProcessingService.syncChangedRows(job.request, job.dataSources, job.watermark);
+        } catch (Exception e) {
+            // The watermark is not advanced, so the failed rows are retried on the next poll
+            log.error("Sync of '{}' failed: {}", job.request.getTableName(), e.getMessage(), e);
+        }
+    }
+
+    private String syncKey(String url, String tableName) {
+        return url + "|" + tableName;
+    }
+
+    private static class SyncJob {
+        private final ProcessRequest request;
+        // Null until the sync has opened its pools
+        private volatile JobDataSources dataSources;
+        private volatile Object watermark;
+        private ScheduledFuture<?> future;
+        private boolean stopped;
+
+        SyncJob(ProcessRequest request) {
+            this.request = request;
+        }
+
+        synchronized void close() {
+            stopped = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+            if (dataSources != null) {
+                dataSources.close();
+            }
+        }
+    }
+}
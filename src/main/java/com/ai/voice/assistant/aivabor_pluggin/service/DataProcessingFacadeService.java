@@ -1,11 +1,18 @@
 package com.ai.voice.assistant.aivabor_pluggin.service;
 
+import com.ai.voice.assistant.aivabor_pluggin.jfr.JobEvents;
 import com.ai.voice.assistant.aivabor_pluggin.model.EnvironmentType;
+import com.ai.voice.assistant.aivabor_pluggin.model.JobPlan;
+import com.ai.voice.assistant.aivabor_pluggin.model.WriteMode;
 import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.vector.VectorFileWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
 /**
  * Facade service for data processing.
  */
@@ -17,16 +24,115 @@ public class DataProcessingFacadeService {
     private final DataSourceService dataSourceService;
     private final PgVectorService pgVectorService;
     private final DataProcessingService dataProcessingService;
+    private final VectorExportService vectorExportService;
+    private final JobPlannerService jobPlannerService;
 
     /**
-     * Processes data based on the environment type.
+     * Plans a job without running it.
      */
-    public void processData(ProcessRequest request, EnvironmentType environmentType) throws Exception {
+    public JobPlan planData(ProcessRequest request) throws Exception {
         dataProcessingService.validateIdentifiers(request);
-        dataSourceService.initializeDataSource(request);
-        pgVectorService.installPgVectorIfNeeded(request, environmentType);
+        try (JobDataSources dataSources = dataSourceService.acquireDataSources(request, null)) {
+            return jobPlannerService.plan(request, dataSources);
+        }
+    }
+
+    /**
+     * Processes data based on the environment type. Returns the job id under which its
+     * JFR events are summarized (see {@link JobProfilingService}).
+     */
+    public String processData(ProcessRequest request, EnvironmentType environmentType) throws Exception {
+        dataProcessingService.validateIdentifiers(request);
+        JobEvents.Job job = beginJob(request, environmentType);
+        try (JobDataSources dataSources = dataSourceService.acquireDataSources(request, job.jobId)) {
+            return runJob(job, request, dataSources, rows -> { },
+                    () -> planAndInstall(job.jobId, request, dataSources, environmentType));
+        } finally {
+            job.commit();
+        }
+    }
+
+    /**
+     * Processes data on the given pools, which the caller keeps open until it returns.
+     * Returns the job id like {@link #processData(ProcessRequest, EnvironmentType)}.
+     */
+    public String processData(ProcessRequest request, JobDataSources dataSources, EnvironmentType environmentType)
+            throws Exception {
+        JobEvents.Job job = beginJob(request, environmentType);
+        try {
+            return runJob(job, request, dataSources, rows -> { }, () -> {
+                dataProcessingService.validateIdentifiers(request);
+                planAndInstall(job.jobId, request, dataSources, environmentType);
+            });
+        } finally {
+            job.commit();
+        }
+    }
+
+    /**
+     * Processes one table of a bulk job on the job's pools, with pgvector already installed,
+     * applying the table's plan and reporting the rows read to {@code progress}. Returns the
+     * job id like {@link #processData(ProcessRequest, EnvironmentType)}.
+     */
+    public String processPlannedTable(ProcessRequest request, JobPlan plan, JobDataSources dataSources,
+                                      EnvironmentType environmentType, LongConsumer progress) throws Exception {
+        JobEvents.Job job = beginJob(request, environmentType);
+        try {
+            return runJob(job, request, dataSources, progress, () -> jobPlannerService.applyPlan(plan, request));
+        } finally {
+            job.commit();
+        }
+    }
+
+    private void planAndInstall(String jobId, ProcessRequest request, JobDataSources dataSources,
+                                EnvironmentType environmentType) throws Exception {
+        jobPlannerService.applyPlan(jobPlannerService.plan(request, dataSources), request);
+        pgVectorService.installPgVectorIfNeeded(request, dataSources, jobId, environmentType);
+    }
+
+    /**
+     * Starts the JFR event of a new job; its id tags the job's setup and load stage events.
+     */
+    private JobEvents.Job beginJob(ProcessRequest request, EnvironmentType environmentType) {
+        JobEvents.Job job = new JobEvents.Job();
+        job.jobId = UUID.randomUUID().toString();
+        job.table = request.getTableName();
+        job.environment = String.valueOf(environmentType);
+        job.status = "FAILED";
+        job.begin();
+        return job;
+    }
+
+    /**
+     * Runs the setup and the load of a job within its JFR job event, which the caller commits.
+     */
+    private String runJob(JobEvents.Job job, ProcessRequest request, JobDataSources dataSources,
+                          LongConsumer progress, JobStep setup) throws Exception {
+        setup.run();
+        job.writeMode = String.valueOf(request.getWriteMode());
+
+        // Null unless the request asks for an export file; discarded if the job fails
+        try (VectorFileWriter exportWriter = vectorExportService.openWriter(request)) {
+            if (request.getWriteMode() == WriteMode.REBUILD) {
+                dataProcessingService.rebuildVectorTable(request, dataSources, job.jobId, exportWriter, progress);
+            } else {
+                dataProcessingService.createVectorTable(request, dataSources);
+                dataProcessingService.processAndInsertData(request, dataSources, job.jobId, exportWriter, progress);
+            }
+            if (exportWriter != null) {
+                exportWriter.finish();
+            }
+        } catch (Exception e) {
+            // The extension may have been dropped since this database was cached as having it
+            pgVectorService.evictIfExtensionMissing(request, e);
+            throw e;
+        }
+        job.status = "COMPLETED";
+        return job.jobId;
+    }
 
-        dataProcessingService.createVectorTable(request);
-        dataProcessingService.processAndInsertData(request);
+    @FunctionalInterface
+    private interface JobStep {
+        void run() throws Exception;
     }
 }
@@ -1,12 +1,33 @@
 package com.ai.voice.assistant.aivabor_pluggin.service;
 
+import com.ai.voice.assistant.aivabor_pluggin.batch.BatchSizeTuner;
+import com.ai.voice.assistant.aivabor_pluggin.batch.BatchSizeTunerFactory;
+import com.ai.voice.assistant.aivabor_pluggin.batch.RowErrorPolicy;
+import com.ai.voice.assistant.aivabor_pluggin.batch.VectorBatchWriter;
+import com.ai.voice.assistant.aivabor_pluggin.embedding.EmbeddingProvider;
+import com.ai.voice.assistant.aivabor_pluggin.jfr.LoadStageRecorder;
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+import com.ai.voice.assistant.aivabor_pluggin.model.WriteMode;
 import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.vector.NearDuplicateDetector;
+import com.ai.voice.assistant.aivabor_pluggin.vector.VectorFileWriter;
+import com.ai.voice.assistant.aivabor_pluggin.vector.VectorQuantizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -17,112 +38,716 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DataProcessingService {
 
-    private final DataSourceService dataSourceService;
+    private final BatchSizeTunerFactory batchSizeTunerFactory;
+    private final RowErrorPolicy rowErrorPolicy;
+    private final DeadLetterService deadLetterService;
+    private final EmbeddingProvider embeddingProvider;
 
     /**
-     * Validates identifiers to prevent SQL injection.
+     * Validates identifiers to prevent SQL injection, along with the request's other settings.
+     * An invalid request fails with an {@link IllegalArgumentException} before any connection is made.
      */
-    public void validateIdentifiers(ProcessRequest request) throws Exception {
+    public void validateIdentifiers(ProcessRequest request) {
         validateIdentifier(request.getTableName());
         validateIdentifier(request.getIdName());
         for (String field : request.getFields()) {
             validateIdentifier(field);
         }
+        if (request.getWatermarkColumn() != null) {
+            validateIdentifier(request.getWatermarkColumn());
+        }
+        Double threshold = request.getNearDuplicateThreshold();
+        if (threshold != null && (threshold <= 0 || threshold > 1)) {
+            throw new IllegalArgumentException("nearDuplicateThreshold must be in (0, 1]: " + threshold);
+        }
+        if (request.getPartitions() != null) {
+            if (request.getPartitions() < 1) {
+                throw new IllegalArgumentException("partitions must be positive: " + request.getPartitions());
+            }
+            // One partition is a plain table (see isPartitioned)
+            if (request.getPartitions() > 1 && request.getWriteMode() == WriteMode.REBUILD) {
+                throw new IllegalArgumentException("REBUILD is not supported for partitioned vector tables.");
+            }
+        }
     }
 
     /**
-     * Processes data and inserts embeddings into the new table.
+     * Processes data and upserts embeddings into the vector table, also appending them to the
+     * export writer if one is given. The number of rows read is reported to {@code progress}
+     * after every batch.
      */
-    public void processAndInsertData(ProcessRequest request) throws Exception {
-        String selectSql = buildSelectSql(request);
-        String insertSql = buildInsertSql(request);
+    public void processAndInsertData(ProcessRequest request, JobDataSources dataSources, String jobId,
+                                     VectorFileWriter exportWriter, LongConsumer progress) throws Exception {
+        deadLetterService.ensureTable(dataSources.getTargetDataSource(), dataSources.getTargetDialect(),
+                request.getTableName());
+        NearDuplicateDetector<float[]> detector = createNearDuplicateDetector(request);
+        if (isPartitioned(request, dataSources.getTargetDialect())) {
+            loadPartitions(request, dataSources, jobId, detector, exportWriter, progress);
+            buildPartitionIndexes(request, dataSources);
+        } else {
+            String vectorTable = request.getTableName() + "_vector";
+            loadVectors(request, dataSources, jobId, buildSelectSql(request, dataSources.getDialect()), vectorTable,
+                    buildUpsertSql(request, vectorTable, dataSources.getTargetDialect()), detector, exportWriter,
+                    progress);
+            if (dataSources.getTargetDialect() == DatabaseDialect.POSTGRESQL) {
+                buildVectorIndex(request, dataSources, vectorTable);
+            }
+        }
+    }
 
-        try (Connection conn = dataSourceService.getDataSource().getConnection();
-             Statement selectStmt = conn.createStatement();
-             PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+    /**
+     * Rebuilds the vector table blue/green: loads an unindexed staging table, builds its
+     * indexes and constraints once, then swaps it in place of the live table. Progress is reported
+     * like {@link #processAndInsertData}.
+     */
+    public void rebuildVectorTable(ProcessRequest request, JobDataSources dataSources, String jobId,
+                                   VectorFileWriter exportWriter, LongConsumer progress) throws Exception {
+        String stagingTable = request.getTableName() + "_vector_staging";
+        DatabaseDialect targetDialect = dataSources.getTargetDialect();
 
-            ResultSet rs = selectStmt.executeQuery(selectSql);
+        try (Connection conn = dataSources.getTargetDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            // The swap would replace a partitioned table by a plain one
+            if (targetDialect == DatabaseDialect.POSTGRESQL && isPartitionedTable(conn, request.getTableName() + "_vector")) {
+                throw new SQLException("REBUILD is not supported for partitioned vector tables.");
+            }
+            dropTableIfExists(conn, stagingTable, targetDialect);
+            stmt.execute(getCreateStagingTableSql(request, stagingTable, targetDialect));
+        }
+        deadLetterService.ensureTable(dataSources.getTargetDataSource(), targetDialect, request.getTableName());
 
-            while (rs.next()) {
-                // Combine the fields into a single text
-                String combinedText = request.getFields().stream()
-                        .map(field -> {
-                            try {
-                                return rs.getString(field);
-                            } catch (SQLException e) {
-                                log.error("Error retrieving field '{}'", field, e);
-                                return "";
-                            }
-                        })
-                        .collect(Collectors.joining(" "));
+        loadVectors(request, dataSources, jobId, buildSelectSql(request, dataSources.getDialect()), stagingTable,
+                buildInsertSql(request, stagingTable, targetDialect), createNearDuplicateDetector(request),
+                exportWriter, progress);
+
+        try (Connection conn = dataSources.getTargetDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String sql : getStagingIndexSql(request, stagingTable, dataSources)) {
+                stmt.execute(sql);
+            }
+            swapVectorTable(conn, request, stagingTable, targetDialect);
+        }
+        log.info("Rebuilt table '{}'.", request.getTableName() + "_vector");
+    }
+
+    /**
+     * Loads each hash partition of the vector table in parallel. Every worker selects only
+     * the source rows that hash to its partition and writes into that partition directly,
+     * so writers never contend on the same heap or index. When the source lives in another
+     * database, which cannot evaluate the target's partition hash, the workers split the
+     * source rows by id modulo instead and let PostgreSQL route them. The workers share the
+     * near-duplicate detector, so duplicates are found across partitions too.
+     */
+    private void loadPartitions(ProcessRequest request, JobDataSources dataSources, String jobId,
+                                NearDuplicateDetector<float[]> detector, VectorFileWriter exportWriter,
+                                LongConsumer progress) throws Exception {
+        int partitions = request.getPartitions();
+        String vectorTable = request.getTableName() + "_vector";
+        boolean separateTarget = dataSources.hasSeparateTarget();
+        // Each worker holds a read and a write connection
+        int threads = separateTarget
+                ? Math.min(partitions, Math.min(dataSources.getMaximumPoolSize(), dataSources.getTargetMaximumPoolSize()))
+                : Math.min(partitions, Math.max(1, dataSources.getMaximumPoolSize() / 2));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int remainder = 0; remainder < partitions; remainder++) {
+                String targetTable = separateTarget ? vectorTable : partitionTable(vectorTable, remainder);
+                String selectSql = separateTarget
+                        ? buildModuloSelectSql(request, partitions, remainder, dataSources.getDialect())
+                        : buildPartitionSelectSql(request, partitions, remainder);
+                String upsertSql = buildUpsertSql(request, targetTable, DatabaseDialect.POSTGRESQL);
+                futures.add(executor.submit(() -> {
+                    loadVectors(request, dataSources, jobId, selectSql, targetTable, upsertSql, detector, exportWriter,
+                            progress);
+                    return null;
+                }));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds the HNSW index of a plain PostgreSQL vector table once its rows are loaded, which
+     * is cheaper than growing it row by row; later loads keep the existing index up to date.
+     */
+    private void buildVectorIndex(ProcessRequest request, JobDataSources dataSources, String vectorTable)
+            throws Exception {
+        try (Connection conn = dataSources.getTargetDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS " +
+                    SqlIdentifiers.quote(getHnswIndexName(request, vectorTable), DatabaseDialect.POSTGRESQL) +
+                    " ON " + SqlIdentifiers.quote(vectorTable, DatabaseDialect.POSTGRESQL) +
+                    " USING hnsw " + getHnswIndexSpec(request));
+        }
+    }
+
+    /**
+     * Builds the HNSW index of every partition in parallel and attaches them to the
+     * partitioned index of the parent table.
+     */
+    private void buildPartitionIndexes(ProcessRequest request, JobDataSources dataSources) throws Exception {
+        int partitions = request.getPartitions();
+        String vectorTable = request.getTableName() + "_vector";
+        String indexSpec = getHnswIndexSpec(request);
+        String parentIndex = getHnswIndexName(request, vectorTable);
+        String parentIndexName = SqlIdentifiers.quote(parentIndex, DatabaseDialect.POSTGRESQL);
+
+        try (Connection conn = dataSources.getTargetDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + parentIndexName +
+                    " ON ONLY " + SqlIdentifiers.quote(vectorTable, DatabaseDialect.POSTGRESQL) +
+                    " USING hnsw " + indexSpec);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(partitions, dataSources.getTargetMaximumPoolSize()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int remainder = 0; remainder < partitions; remainder++) {
+                String partitionTable = partitionTable(vectorTable, remainder);
+                String partitionIndex = getHnswIndexName(request, partitionTable);
+                String partitionIndexName = SqlIdentifiers.quote(partitionIndex, DatabaseDialect.POSTGRESQL);
+                String partitionTableName = SqlIdentifiers.quote(partitionTable, DatabaseDialect.POSTGRESQL);
+                futures.add(executor.submit(() -> {
+                    try (Connection conn = dataSources.getTargetDataSource().getConnection();
+                         Statement stmt = conn.createStatement()) {
+                        if (!relationExists(conn, partitionIndex)) {
+                            stmt.execute("CREATE INDEX " + partitionIndexName + " ON " + partitionTableName +
+                                    " USING hnsw " + indexSpec);
+                            stmt.execute("ALTER INDEX " + parentIndexName + " ATTACH PARTITION " + partitionIndexName);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Built HNSW indexes on {} partitions of '{}'.", partitions, vectorTable);
+    }
+
+    /**
+     * Returns the name of a table's HNSW index. Quantized tables index the compact codes, which
+     * are what searches scan.
+     */
+    private String getHnswIndexName(ProcessRequest request, String table) {
+        return table + "_" + (isQuantized(request) ? "embedding_q" : "embedding") + "_idx";
+    }
+
+    /**
+     * Returns the indexed column and operator class of the HNSW index for the request's quantization.
+     */
+    private String getHnswIndexSpec(ProcessRequest request) throws Exception {
+        switch (getQuantization(request)) {
+            case NONE:
+                return "(embedding vector_l2_ops)";
+            case HALF:
+                return "(embedding_q halfvec_l2_ops)";
+            case BINARY:
+                return "(embedding_q bit_hamming_ops)";
+            default:
+                throw new SQLException("Unsupported quantization on PostgreSQL: " + request.getQuantization());
+        }
+    }
+
+    /**
+     * Waits for all tasks, rethrowing the first failure.
+     */
+    private void awaitAll(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+    }
+
+    /**
+     * Creates the near-duplicate detector of one job, or returns null if deduplication is off.
+     */
+    private NearDuplicateDetector<float[]> createNearDuplicateDetector(ProcessRequest request) {
+        return request.getNearDuplicateThreshold() != null
+                ? new NearDuplicateDetector<>(request.getNearDuplicateThreshold())
+                : null;
+    }
+
+    /**
+     * Streams the source rows, embeds them and writes them with the given statement,
+     * committing in batches whose size is tuned while the load runs. Rows that fail are
+     * recorded in the dead-letter table instead of failing the load. Texts close to one seen
+     * earlier by the detector, if any, reuse that text's embedding.
+     */
+    private void loadVectors(ProcessRequest request, JobDataSources dataSources, String jobId, String selectSql,
+                             String targetTable, String writeSql, NearDuplicateDetector<float[]> detector,
+                             VectorFileWriter exportWriter, LongConsumer progress) throws Exception {
+        DatabaseDialect dialect = dataSources.getTargetDialect();
+        BatchSizeTuner tuner = batchSizeTunerFactory.create(request.getBatchSize());
+        LoadStageRecorder stages = new LoadStageRecorder(jobId, targetTable);
+        long rows = 0;
+        long reported = 0;
+        long failed;
+
+        // Separate connections so that committing writes does not close the streaming read cursor
+        try (Connection readConn = dataSources.getDataSource().getConnection();
+             Connection writeConn = dataSources.getTargetDataSource().getConnection()) {
+            readConn.setAutoCommit(false);
+            writeConn.setAutoCommit(false);
 
-                // Get ID
-                int id = rs.getInt(request.getIdName());
+            try (Statement selectStmt = readConn.createStatement();
+                 PreparedStatement writeStmt = writeConn.prepareStatement(writeSql)) {
+                selectStmt.setFetchSize(tuner.getFetchSize());
+                VectorBatchWriter writer = createBatchWriter(request, writeConn, writeStmt, dialect, tuner, stages,
+                        exportWriter);
 
-                // Get embedding
-                float[] embedding = getEmbedding(combinedText);
+                try (ResultSet rs = selectStmt.executeQuery(selectSql)) {
+                    while (rs.next()) {
+                        stages.lap(LoadStageRecorder.Stage.READ, 0);
+                        Integer id = null;
+                        LoadStageRecorder.Stage stage = LoadStageRecorder.Stage.PROJECTION;
+                        try {
+                            // Get ID
+                            id = rs.getInt(request.getIdName());
 
-                // Insert embedding into the new table
-                setParameters(insertStmt, id, embedding);
-                insertStmt.executeUpdate();
+                            // Combine the fields into a single text
+                            String combinedText = getEmbeddableText(rs, request);
+                            stages.lap(LoadStageRecorder.Stage.PROJECTION, combinedText.length());
+
+                            // Get embedding, reusing the one of a near-duplicate row if possible
+                            stage = LoadStageRecorder.Stage.EMBEDDING;
+                            float[] embedding = rowErrorPolicy.callWithRetry(() -> detector != null
+                                    ? getDeduplicatedEmbedding(combinedText, detector)
+                                    : getEmbedding(combinedText));
+                            stages.lap(LoadStageRecorder.Stage.EMBEDDING, (long) embedding.length * Float.BYTES);
+
+                            // Queue the embedding for the vector table
+                            stage = LoadStageRecorder.Stage.ENCODING;
+                            writer.add(id, embedding);
+                            stages.lap(LoadStageRecorder.Stage.ENCODING, getEncodedSize(embedding, request));
+                        } catch (Exception e) {
+                            rethrowIfConnectionFailure(e);
+                            stages.lap(stage, 0);
+                            writer.reject(id, stage.name(), e);
+                        }
+                        rows++;
+                        if (writer.isFull()) {
+                            writer.flush();
+                            rs.setFetchSize(tuner.getFetchSize());
+                            progress.accept(rows - reported);
+                            reported = rows;
+                        }
+                    }
+                }
+                writer.flush();
+                progress.accept(rows - reported);
+                failed = writer.getFailedCount();
+                readConn.commit();
+            } catch (Exception e) {
+                writeConn.rollback();
+                throw e;
             }
-            log.info("Data processing and insertion completed.");
         }
+
+        if (detector != null) {
+            log.info("Embedded {} representatives for {} rows (near-duplicate threshold {}).",
+                    detector.getRepresentativeCount(), rows, request.getNearDuplicateThreshold());
+        }
+        if (failed > 0) {
+            log.warn("{} of {} rows failed and were recorded in '{}'.", failed, rows,
+                    request.getTableName() + "_vector_errors");
+        }
+        log.info("Loaded {} rows into '{}' ({}).", rows - failed, targetTable, tuner.report());
+    }
+
+    /**
+     * Creates the batch writer of one loader, which binds rows with {@link #setParameters} and
+     * sends failed rows to the dead-letter table of the request's table.
+     */
+    private VectorBatchWriter createBatchWriter(ProcessRequest request, Connection writeConn,
+                                                PreparedStatement writeStmt, DatabaseDialect dialect,
+                                                BatchSizeTuner tuner,
+                                                LoadStageRecorder stages, VectorFileWriter exportWriter) {
+        VectorQuantization quantization = getQuantization(request);
+        return new VectorBatchWriter(writeConn, writeStmt,
+                (stmt, id, embedding) -> setParameters(stmt, id, embedding, dialect, quantization),
+                (conn, failedRows) -> deadLetterService.write(conn, dialect, request.getTableName(), failedRows),
+                rowErrorPolicy, tuner, stages, exportWriter);
+    }
+
+    /**
+     * Returns the combined text of the current row, failing if it cannot be embedded.
+     */
+    private String getEmbeddableText(ResultSet rs, ProcessRequest request) throws SQLException {
+        String combinedText = combineFields(rs, request);
+        String invalid = rowErrorPolicy.checkText(combinedText);
+        if (invalid != null) {
+            throw new IllegalArgumentException(invalid);
+        }
+        return combinedText;
+    }
+
+    /**
+     * Rethrows errors of a lost connection, which no single row is to blame for.
+     */
+    private void rethrowIfConnectionFailure(Exception e) throws SQLException {
+        if (e instanceof SQLException sqlException && rowErrorPolicy.isConnectionFailure(sqlException)) {
+            throw sqlException;
+        }
+    }
+
+    /**
+     * Returns the bytes bound for one row: the float32 embedding plus its quantized code, if any.
+     */
+    private long getEncodedSize(float[] embedding, ProcessRequest request) {
+        VectorQuantization quantization = getQuantization(request);
+        long size = (long) embedding.length * Float.BYTES;
+        return quantization == VectorQuantization.NONE ? size : size + VectorQuantizer.codeSize(embedding.length, quantization);
+    }
+
+    /**
+     * Returns the current maximum of the request's watermark column, or null for an empty table.
+     */
+    public Object getMaxWatermark(ProcessRequest request, JobDataSources dataSources) throws Exception {
+        DatabaseDialect dialect = dataSources.getDialect();
+        String sql = "SELECT MAX(" + SqlIdentifiers.quote(request.getWatermarkColumn(), dialect) + ") FROM "
+                + SqlIdentifiers.quote(request.getTableName(), dialect);
+        try (Connection conn = dataSources.getDataSource().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getObject(1) : null;
+        }
+    }
+
+    /**
+     * Embeds the source rows whose watermark is at or after the given one and upserts their vectors
+     * into the target, committing in tuned batches. Rows sharing the last watermark are read again
+     * by the next poll, which the upserts make harmless, so rows committed late with an equal
+     * watermark are not missed. Rows that fail are recorded in the dead-letter table; those that
+     * still failed transiently after their retries hold the watermark at the start of their batch,
+     * so the next poll retries them, while rows failing for good let it advance, so one poison row
+     * is neither re-embedded nor dead-lettered again on every poll. Returns the watermark the next
+     * poll starts from.
+     */
+    public Object syncChangedRows(ProcessRequest request, JobDataSources dataSources, Object watermark)
+            throws Exception {
+        DataSource dataSource = dataSources.getDataSource();
+        DataSource targetDataSource = dataSources.getTargetDataSource();
+        DatabaseDialect dialect = dataSources.getTargetDialect();
+        String selectSql = buildChangedRowsSelectSql(request, watermark != null, dataSources.getDialect());
+        String upsertSql = buildUpsertSql(request, request.getTableName() + "_vector", dialect);
+
+        deadLetterService.ensureTable(targetDataSource, dialect, request.getTableName());
+        BatchSizeTuner tuner = batchSizeTunerFactory.create(request.getBatchSize());
+        // Polls are not jobs of their own, so their stage events carry no job id
+        LoadStageRecorder stages = new LoadStageRecorder(null, request.getTableName() + "_vector");
+        Object latest = watermark;
+        // Watermark of the first row of the batch being written, and whether a transient failure holds the watermark
+        Object batchStart = null;
+        boolean held = false;
+        long transientFailedBefore = 0;
+        long synced = 0;
+        long failed;
+        // Separate connections so that committing writes does not close the streaming read cursor
+        try (Connection readConn = dataSource.getConnection();
+             Connection writeConn = targetDataSource.getConnection()) {
+            readConn.setAutoCommit(false);
+            writeConn.setAutoCommit(false);
+
+            try (PreparedStatement selectStmt = readConn.prepareStatement(selectSql);
+                 PreparedStatement upsertStmt = writeConn.prepareStatement(upsertSql)) {
+                selectStmt.setFetchSize(tuner.getFetchSize());
+                if (watermark != null) {
+                    selectStmt.setObject(1, watermark);
+                }
+                VectorBatchWriter writer = createBatchWriter(request, writeConn, upsertStmt, dialect, tuner, stages,
+                        null);
+
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    while (rs.next()) {
+                        stages.lap(LoadStageRecorder.Stage.READ, 0);
+                        Object rowWatermark = rs.getObject(request.getWatermarkColumn());
+                        if (batchStart == null) {
+                            batchStart = rowWatermark;
+                        }
+                        Integer id = null;
+                        LoadStageRecorder.Stage stage = LoadStageRecorder.Stage.PROJECTION;
+                        try {
+                            id = rs.getInt(request.getIdName());
+                            String combinedText = getEmbeddableText(rs, request);
+                            stages.lap(LoadStageRecorder.Stage.PROJECTION, combinedText.length());
+
+                            stage = LoadStageRecorder.Stage.EMBEDDING;
+                            float[] embedding = rowErrorPolicy.callWithRetry(() -> getEmbedding(combinedText));
+                            stages.lap(LoadStageRecorder.Stage.EMBEDDING, (long) embedding.length * Float.BYTES);
+
+                            stage = LoadStageRecorder.Stage.ENCODING;
+                            writer.add(id, embedding);
+                            stages.lap(LoadStageRecorder.Stage.ENCODING, getEncodedSize(embedding, request));
+                        } catch (Exception e) {
+                            rethrowIfConnectionFailure(e);
+                            stages.lap(stage, 0);
+                            writer.reject(id, stage.name(), e);
+                        }
+
+                        synced++;
+                        if (!held) {
+                            latest = rowWatermark;
+                        }
+                        if (writer.isFull()) {
+                            writer.flush();
+                            rs.setFetchSize(tuner.getFetchSize());
+                            if (!held && writer.getTransientFailedCount() > transientFailedBefore) {
+                                latest = batchStart;
+                                held = true;
+                            }
+                            batchStart = null;
+                            transientFailedBefore = writer.getTransientFailedCount();
+                        }
+                    }
+                }
+                writer.flush();
+                if (!held && writer.getTransientFailedCount() > transientFailedBefore) {
+                    latest = batchStart;
+                }
+                failed = writer.getFailedCount();
+                readConn.commit();
+            } catch (Exception e) {
+                writeConn.rollback();
+                throw e;
+            }
+        }
+
+        if (synced > 0) {
+            log.info("Synced {} changed rows of '{}' up to watermark {}{}.", synced, request.getTableName(), latest,
+                    failed > 0 ? "; " + failed + " failed rows recorded in '" + request.getTableName() + "_vector_errors'" : "");
+        }
+        return latest;
+    }
+
+    /**
+     * Combines the requested fields of the current row into a single text. A field that cannot be
+     * read fails the row rather than being embedded as an empty string.
+     */
+    private String combineFields(ResultSet rs, ProcessRequest request) throws SQLException {
+        List<String> values = new ArrayList<>(request.getFields().size());
+        for (String field : request.getFields()) {
+            try {
+                values.add(rs.getString(field));
+            } catch (SQLException e) {
+                throw new SQLException("Error retrieving field '" + field + "': " + e.getMessage(),
+                        e.getSQLState(), e.getErrorCode(), e);
+            }
+        }
+        return String.join(" ", values);
+    }
+
+    /**
+     * Builds the SELECT SQL query for rows changed at or after the watermark, in watermark order.
+     */
+    private String buildChangedRowsSelectSql(ProcessRequest request, boolean hasWatermark, DatabaseDialect dialect) {
+        String watermarkColumn = SqlIdentifiers.quote(request.getWatermarkColumn(), dialect);
+        String condition = hasWatermark ? watermarkColumn + " >= ?" : watermarkColumn + " IS NOT NULL";
+        String fields = request.getFields().stream()
+                .map(field -> SqlIdentifiers.quote(field, dialect))
+                .collect(Collectors.joining(", "));
+        return String.format("SELECT %s, %s, %s FROM %s WHERE %s ORDER BY %s",
+                SqlIdentifiers.quote(request.getIdName(), dialect), fields, watermarkColumn,
+                SqlIdentifiers.quote(request.getTableName(), dialect), condition, watermarkColumn);
     }
 
     /**
      * Builds the SELECT SQL query based on the request.
      */
-    private String buildSelectSql(ProcessRequest request) {
+    private String buildSelectSql(ProcessRequest request, DatabaseDialect dialect) {
         String fields = request.getFields().stream()
-                .map(this::escapeIdentifier)
+                .map(field -> SqlIdentifiers.quote(field, dialect))
                 .collect(Collectors.joining(", "));
-        String idName = escapeIdentifier(request.getIdName());
-        String tableName = escapeIdentifier(request.getTableName());
+        String idName = SqlIdentifiers.quote(request.getIdName(), dialect);
+        String tableName = SqlIdentifiers.quote(request.getTableName(), dialect);
         return String.format("SELECT %s, %s FROM %s", idName, fields, tableName);
     }
 
     /**
-     * Builds the INSERT SQL query based on the dialect.
+     * Builds the SELECT SQL query for the source rows that hash to one partition of the vector table.
      */
-    private String buildInsertSql(ProcessRequest request) throws Exception {
-        String foreignKeyName = escapeIdentifier("fk_" + request.getTableName() + "_" + request.getIdName());
-        String vectorTableName = escapeIdentifier(request.getTableName() + "_vector");
-        switch (dataSourceService.getDialect()) {
+    private String buildPartitionSelectSql(ProcessRequest request, int partitions, int remainder) {
+        DatabaseDialect dialect = DatabaseDialect.POSTGRESQL;
+        String vectorTableLiteral = "'" + SqlIdentifiers.quote(request.getTableName() + "_vector", dialect) + "'";
+        return buildSelectSql(request, dialect) + " WHERE satisfies_hash_partition(" + vectorTableLiteral + "::regclass, " +
+                partitions + ", " + remainder + ", " + SqlIdentifiers.quote(request.getIdName(), dialect) + "::int)";
+    }
+
+    /**
+     * Builds the SELECT SQL query for one of several disjoint slices of the source rows, split by id.
+     */
+    private String buildModuloSelectSql(ProcessRequest request, int slices, int slice, DatabaseDialect dialect)
+            throws Exception {
+        String idName = SqlIdentifiers.quote(request.getIdName(), dialect);
+        switch (dialect) {
             case MYSQL:
             case POSTGRESQL:
             case ORACLE:
+                return buildSelectSql(request, dialect) + " WHERE MOD(" + idName + ", " + slices + ") = " + slice;
             case SQLSERVER:
-                return "INSERT INTO " + vectorTableName + " (" + foreignKeyName + ", embedding) VALUES (?, ?)";
+                return buildSelectSql(request, dialect) + " WHERE " + idName + " % " + slices + " = " + slice;
             default:
-                throw new SQLException("Unsupported dialect: " + dataSourceService.getDialect());
+                throw new SQLException("Unsupported dialect: " + dialect);
+        }
+    }
+
+    /**
+     * Builds the INSERT SQL query for the given vector table based on the dialect.
+     */
+    private String buildInsertSql(ProcessRequest request, String vectorTable, DatabaseDialect dialect)
+            throws Exception {
+        String vectorTableName = SqlIdentifiers.quote(vectorTable, dialect);
+        switch (dialect) {
+            case MYSQL:
+            case POSTGRESQL:
+            case ORACLE:
+            case SQLSERVER:
+                return "INSERT INTO " + vectorTableName + " (" + getVectorColumns(request, dialect) + ") " +
+                        "VALUES (" + getVectorValues(request, dialect) + ")";
+            default:
+                throw new SQLException("Unsupported dialect: " + dialect);
+        }
+    }
+
+    /**
+     * Builds the upsert SQL query keyed on the foreign key column based on the dialect.
+     * Parameters are bound in the same order as for {@link #buildInsertSql}.
+     */
+    private String buildUpsertSql(ProcessRequest request, String vectorTable, DatabaseDialect dialect)
+            throws Exception {
+        String foreignKeyName = SqlIdentifiers.quote(foreignKeyColumn(request), dialect);
+        String vectorTableName = SqlIdentifiers.quote(vectorTable, dialect);
+        String columns = getVectorColumns(request, dialect);
+        String values = getVectorValues(request, dialect);
+        boolean quantized = isQuantized(request);
+        switch (dialect) {
+            case MYSQL:
+                return "INSERT INTO " + vectorTableName + " (" + columns + ") VALUES (" + values + ") " +
+                        "ON DUPLICATE KEY UPDATE embedding = VALUES(embedding)" +
+                        (quantized ? ", embedding_q = VALUES(embedding_q)" : "");
+            case POSTGRESQL:
+                return "INSERT INTO " + vectorTableName + " (" + columns + ") VALUES (" + values + ") " +
+                        "ON CONFLICT (" + foreignKeyName + ") DO UPDATE SET embedding = EXCLUDED.embedding" +
+                        (quantized ? ", embedding_q = EXCLUDED.embedding_q" : "");
+            case ORACLE:
+                return "MERGE INTO " + vectorTableName + " t " +
+                        "USING (SELECT ? AS fk, ? AS embedding" + (quantized ? ", ? AS embedding_q" : "") +
+                        " FROM dual) s " +
+                        "ON (t." + foreignKeyName + " = s.fk) " +
+                        "WHEN MATCHED THEN UPDATE SET t.embedding = s.embedding" +
+                        (quantized ? ", t.embedding_q = s.embedding_q " : " ") +
+                        "WHEN NOT MATCHED THEN INSERT (" + columns + ") " +
+                        "VALUES (s.fk, s.embedding" + (quantized ? ", s.embedding_q" : "") + ")";
+            case SQLSERVER:
+                return "MERGE INTO " + vectorTableName + " WITH (HOLDLOCK) AS t " +
+                        "USING (SELECT ? AS fk, ? AS embedding" + (quantized ? ", ? AS embedding_q" : "") + ") AS s " +
+                        "ON t." + foreignKeyName + " = s.fk " +
+                        "WHEN MATCHED THEN UPDATE SET embedding = s.embedding" +
+                        (quantized ? ", embedding_q = s.embedding_q " : " ") +
+                        "WHEN NOT MATCHED THEN INSERT (" + columns + ") " +
+                        "VALUES (s.fk, s.embedding" + (quantized ? ", s.embedding_q" : "") + ");";
+            default:
+                throw new SQLException("Unsupported dialect: " + dialect);
+        }
+    }
+
+    /**
+     * Columns written for each vector row.
+     */
+    private String getVectorColumns(ProcessRequest request, DatabaseDialect dialect) {
+        return SqlIdentifiers.quote(foreignKeyColumn(request), dialect) + ", embedding" +
+                (isQuantized(request) ? ", embedding_q" : "");
+    }
+
+    /**
+     * Value placeholders matching {@link #getVectorColumns}. PostgreSQL derives the code from the
+     * embedding parameter itself; other dialects bind the code encoded by {@link VectorQuantizer}.
+     */
+    private String getVectorValues(ProcessRequest request, DatabaseDialect dialect) {
+        if (!isQuantized(request)) {
+            return "?, ?";
         }
+        if (dialect == DatabaseDialect.POSTGRESQL) {
+            return getQuantization(request) == VectorQuantization.BINARY
+                    ? "?, ?, binary_quantize(?::vector)"
+                    : "?, ?, ?::vector::halfvec";
+        }
+        return "?, ?, ?";
     }
 
     /**
      * Sets the embedding parameter in the PreparedStatement based on the dialect.
      */
-    private void setParameters(PreparedStatement stmt, int id, float[] embedding) throws Exception {
+    private void setParameters(PreparedStatement stmt, int id, float[] embedding, DatabaseDialect dialect,
+                               VectorQuantization quantization) throws Exception {
         stmt.setInt(1, id);
 
-        switch (dataSourceService.getDialect()) {
+        switch (dialect) {
             case MYSQL:
                 stmt.setString(2, Arrays.toString(embedding));
                 break;
             case POSTGRESQL:
                 Array array = stmt.getConnection().createArrayOf("float4", toObjectArray(embedding));
                 stmt.setArray(2, array);
-                break;
+                if (quantization != VectorQuantization.NONE) {
+                    stmt.setArray(3, array);
+                }
+                // The code is computed by the database from the same array
+                return;
             case ORACLE:
-                // You might need to handle BLOBs or custom data types
                 stmt.setBytes(2, floatArrayToByteArray(embedding));
                 break;
             case SQLSERVER:
                 stmt.setString(2, Arrays.toString(embedding));
                 break;
             default:
-                throw new SQLException("Unsupported dialect: " + dataSourceService.getDialect());
+                throw new SQLException("Unsupported dialect: " + dialect);
+        }
+        if (quantization != VectorQuantization.NONE) {
+            stmt.setBytes(3, VectorQuantizer.encode(embedding, quantization));
+        }
+    }
+
+    /**
+     * Reads a full-precision embedding written by {@link #setParameters} back from a result set column.
+     */
+    public float[] readEmbedding(ResultSet rs, int column, DatabaseDialect dialect) throws Exception {
+        switch (dialect) {
+            case MYSQL:
+            case POSTGRESQL:
+            case SQLSERVER:
+                // JSON array text, or pgvector's text form, both "[x, y, ...]"
+                String text = rs.getString(column);
+                return text != null ? parseEmbedding(text) : null;
+            case ORACLE:
+                byte[] bytes = rs.getBytes(column);
+                return bytes != null ? byteArrayToFloatArray(bytes) : null;
+            default:
+                throw new SQLException("Unsupported dialect: " + dialect);
+        }
+    }
+
+    private float[] parseEmbedding(String text) {
+        String body = text.trim();
+        body = body.substring(1, body.length() - 1);
+        if (body.isBlank()) {
+            return new float[0];
+        }
+        String[] values = body.split(",");
+        float[] embedding = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            embedding[i] = Float.parseFloat(values[i].trim());
         }
+        return embedding;
     }
 
     /**
@@ -139,91 +764,452 @@ public class DataProcessingService {
     /**
      * Converts a float array to a byte array (for Oracle BLOB).
      */
-    private byte[] floatArrayToByteArray(float[] floatArray) throws Exception {
-        // Implement conversion logic or use serialization
-        throw new UnsupportedOperationException("floatArrayToByteArray not implemented.");
+    private byte[] floatArrayToByteArray(float[] floatArray) {
+        ByteBuffer buffer = ByteBuffer.allocate(floatArray.length * Float.BYTES);
+        buffer.asFloatBuffer().put(floatArray);
+        return buffer.array();
+    }
+
+    /**
+     * Converts a byte array written by {@link #floatArrayToByteArray} back to a float array.
+     */
+    private float[] byteArrayToFloatArray(byte[] bytes) {
+        float[] floatArray = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(floatArray);
+        return floatArray;
     }
 
     /**
-     * Gets the embedding for the given text using a Java library.
+     * Returns the embedding of a near-duplicate representative, or embeds the text
+     * and registers it as a new representative. The text is embedded outside the detector's
+     * lock, so two loaders may register near-identical representatives; both stay valid.
      */
-    private float[] getEmbedding(String text) throws Exception {
-        // Replace this with actual implementation using a Java library.
-        // For demonstration purposes, return a dummy embedding:
-        float[] dummyEmbedding = new float[1536];
-        Arrays.fill(dummyEmbedding, 0.0f);
-        return dummyEmbedding;
+    private float[] getDeduplicatedEmbedding(String text, NearDuplicateDetector<float[]> detector) throws Exception {
+        int[] signature = detector.signature(text);
+        float[] embedding = detector.findNearDuplicate(signature);
+        if (embedding == null) {
+            embedding = getEmbedding(text);
+            detector.register(signature, embedding);
+        }
+        return embedding;
+    }
+
+    /**
+     * Gets the embedding for the given text from the configured {@link EmbeddingProvider}.
+     */
+    public float[] getEmbedding(String text) throws Exception {
+        return embeddingProvider.embed(text);
     }
 
     /**
      * Helper method to validate SQL identifiers.
      */
-    private void validateIdentifier(String identifier) throws Exception {
+    private void validateIdentifier(String identifier) {
         if (identifier == null || !identifier.matches("[A-Za-z0-9_]+")) {
-            throw new SQLException("Invalid identifier: " + identifier);
+            throw new IllegalArgumentException("Invalid identifier: " + identifier);
         }
     }
 
     /**
-     * Escapes SQL identifiers to prevent SQL injection.
+     * Whether the request targets a hash-partitioned vector table.
+     */
+    private boolean isPartitioned(ProcessRequest request, DatabaseDialect targetDialect) {
+        return request.getPartitions() != null && request.getPartitions() > 1
+                && targetDialect == DatabaseDialect.POSTGRESQL;
+    }
+
+    private VectorQuantization getQuantization(ProcessRequest request) {
+        return request.getQuantization() != null ? request.getQuantization() : VectorQuantization.NONE;
+    }
+
+    private boolean isQuantized(ProcessRequest request) {
+        return getQuantization(request) != VectorQuantization.NONE;
+    }
+
+    private String partitionTable(String vectorTable, int remainder) {
+        return vectorTable + "_p" + remainder;
+    }
+
+    /**
+     * Name of the vector table column referencing the source row.
      */
-    private String escapeIdentifier(String identifier) {
-        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    private String foreignKeyColumn(ProcessRequest request) {
+        return SqlIdentifiers.foreignKeyColumn(request.getTableName(), request.getIdName());
     }
 
 
     /**
-     * Creates a new vector table based on the request.
+     * Creates a new vector table based on the request, or makes sure an existing one
+     * has the unique key that upserts rely on.
      */
-    public void createVectorTable(ProcessRequest request) throws Exception {
-        String createTableSql = getCreateTableSql(request);
-        try (Connection conn = dataSourceService.getDataSource().getConnection();
+    public void createVectorTable(ProcessRequest request, JobDataSources dataSources) throws Exception {
+        DatabaseDialect targetDialect = dataSources.getTargetDialect();
+        if (request.getPartitions() != null && request.getPartitions() > 1 && targetDialect != DatabaseDialect.POSTGRESQL) {
+            throw new SQLException("Partitioned vector tables are only supported on PostgreSQL.");
+        }
+        if (getQuantization(request) == VectorQuantization.INT8 && targetDialect == DatabaseDialect.POSTGRESQL) {
+            throw new SQLException("INT8 quantization is not supported on PostgreSQL; use HALF or BINARY.");
+        }
+        String vectorTable = request.getTableName() + "_vector";
+        try (Connection conn = dataSources.getTargetDataSource().getConnection();
              Statement stmt = conn.createStatement()) {
-            stmt.execute(createTableSql);
-            log.info("Created table '{}'.", request.getTableName() + "_vector");
+            if (tableExists(conn, vectorTable)) {
+                if (isPartitioned(request, targetDialect)) {
+                    checkPartitionCount(conn, vectorTable, request.getPartitions());
+                }
+                ensureUniqueForeignKey(conn, request, targetDialect);
+                ensureQuantizedColumn(conn, request, targetDialect);
+                log.info("Table '{}' already exists.", vectorTable);
+                return;
+            }
+            stmt.execute(getCreateTableSql(request, dataSources));
+            if (isPartitioned(request, targetDialect)) {
+                for (int remainder = 0; remainder < request.getPartitions(); remainder++) {
+                    stmt.execute("CREATE TABLE " +
+                            SqlIdentifiers.quote(partitionTable(vectorTable, remainder), targetDialect) +
+                            " PARTITION OF " + SqlIdentifiers.quote(vectorTable, targetDialect) +
+                            " FOR VALUES WITH (MODULUS " + request.getPartitions() + ", REMAINDER " + remainder + ")");
+                }
+            }
+            log.info("Created table '{}'.", vectorTable);
+        }
+    }
+
+    /**
+     * Fails if an existing vector table is not split into the requested number of partitions,
+     * since the loader routes rows by the requested modulus.
+     */
+    private void checkPartitionCount(Connection conn, String vectorTable, int partitions) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT COUNT(*) FROM pg_inherits WHERE inhparent = to_regclass(?)")) {
+            stmt.setString(1, SqlIdentifiers.quote(vectorTable, DatabaseDialect.POSTGRESQL));
+            try (ResultSet rs = stmt.executeQuery()) {
+                int existing = rs.next() ? rs.getInt(1) : 0;
+                if (existing != partitions) {
+                    throw new SQLException("Table '" + vectorTable + "' has " + existing +
+                            " partitions but " + partitions + " were requested.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the unique key on the foreign key column to vector tables created before it
+     * existed, dropping duplicate rows of earlier reruns first (the newest row is kept).
+     */
+    private void ensureUniqueForeignKey(Connection conn, ProcessRequest request, DatabaseDialect targetDialect)
+            throws SQLException {
+        String vectorTable = request.getTableName() + "_vector";
+        String foreignKeyColumn = foreignKeyColumn(request);
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), conn.getSchema(), vectorTable, true, true)) {
+            while (rs.next()) {
+                if (foreignKeyColumn.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                    return;
+                }
+            }
+        }
+
+        String vectorTableName = SqlIdentifiers.quote(vectorTable, targetDialect);
+        String foreignKeyName = SqlIdentifiers.quote(foreignKeyColumn, targetDialect);
+        try (Statement stmt = conn.createStatement()) {
+            int removed = stmt.executeUpdate("DELETE FROM " + vectorTableName + " WHERE id NOT IN (" +
+                    "SELECT keep_id FROM (SELECT MAX(id) keep_id FROM " + vectorTableName +
+                    " GROUP BY " + foreignKeyName + ") k)");
+            stmt.execute("ALTER TABLE " + vectorTableName + " ADD UNIQUE (" + foreignKeyName + ")");
+            log.info("Added unique key on '{}' after removing {} duplicate rows.", foreignKeyColumn, removed);
         }
     }
 
+    /**
+     * Adds the code column to vector tables created without quantization. Existing rows get
+     * their codes on the next full load, and are skipped by searches until then.
+     */
+    private void ensureQuantizedColumn(Connection conn, ProcessRequest request, DatabaseDialect targetDialect)
+            throws Exception {
+        if (!isQuantized(request)) {
+            return;
+        }
+        String vectorTable = request.getTableName() + "_vector";
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), conn.getSchema(), vectorTable, null)) {
+            while (rs.next()) {
+                if ("embedding_q".equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + SqlIdentifiers.quote(vectorTable, targetDialect) + " ADD embedding_q " +
+                    getQuantizedColumnType(request, targetDialect));
+            log.info("Added {} code column to '{}'.", getQuantization(request), vectorTable);
+        }
+    }
+
+    /**
+     * Returns the column type of the quantized code based on the dialect.
+     */
+    private String getQuantizedColumnType(ProcessRequest request, DatabaseDialect targetDialect) throws Exception {
+        VectorQuantization quantization = getQuantization(request);
+        int codeSize = VectorQuantizer.codeSize(embeddingProvider.getDimensions(), quantization);
+        switch (targetDialect) {
+            case MYSQL:
+            case SQLSERVER:
+                return "VARBINARY(" + codeSize + ")";
+            case POSTGRESQL:
+                return quantization == VectorQuantization.BINARY
+                        ? "bit(" + embeddingProvider.getDimensions() + ")"
+                        : "halfvec(" + embeddingProvider.getDimensions() + ")";
+            case ORACLE:
+                return codeSize <= 2000 ? "RAW(" + codeSize + ")" : "BLOB";
+            default:
+                throw new SQLException("Unsupported dialect: " + targetDialect);
+        }
+    }
+
+    /**
+     * Column definition of the quantized code, including the leading separator, or empty if not quantized.
+     */
+    private String getQuantizedColumnSql(ProcessRequest request, DatabaseDialect targetDialect) throws Exception {
+        return isQuantized(request) ? ", embedding_q " + getQuantizedColumnType(request, targetDialect) : "";
+    }
+
     /**
      * Generates the SQL for creating the vector table.
      */
-    private String getCreateTableSql(ProcessRequest request) throws Exception {
-        String originalTableName = escapeIdentifier(request.getTableName());
-        String vectorTableName = escapeIdentifier(request.getTableName() + "_vector");
-        String idName = "(" + escapeIdentifier(request.getIdName()) + ")";
-        String foreignKeyName = escapeIdentifier("fk_" + request.getTableName() + "_" + request.getIdName());
+    private String getCreateTableSql(ProcessRequest request, JobDataSources dataSources) throws Exception {
+        DatabaseDialect targetDialect = dataSources.getTargetDialect();
+        String originalTableName = SqlIdentifiers.quote(request.getTableName(), targetDialect);
+        String vectorTableName = SqlIdentifiers.quote(request.getTableName() + "_vector", targetDialect);
+        String idName = "(" + SqlIdentifiers.quote(request.getIdName(), targetDialect) + ")";
+        String foreignKeyName = SqlIdentifiers.quote(foreignKeyColumn(request), targetDialect);
+        String quantizedColumn = getQuantizedColumnSql(request, targetDialect);
+        // A foreign key cannot span databases, so a separate target only stores the source id
+        String foreignKeyConstraint = dataSources.hasSeparateTarget() ? ""
+                : ", FOREIGN KEY (" + foreignKeyName + ") REFERENCES " + originalTableName + " " + idName;
 
-        switch (dataSourceService.getDialect()) {
+        switch (targetDialect) {
             case MYSQL:
                 return "CREATE TABLE IF NOT EXISTS " + vectorTableName + " (" +
                         "id INT AUTO_INCREMENT PRIMARY KEY NOT NULL, " +
-                        foreignKeyName + " INT NOT NULL, " +
-                        "embedding JSON, " +
-                        "FOREIGN KEY (" + foreignKeyName + ") REFERENCES " + originalTableName + idName +
+                        foreignKeyName + " INT NOT NULL UNIQUE, " +
+                        "embedding JSON" + quantizedColumn + foreignKeyConstraint +
                         ")";
             case POSTGRESQL:
+                if (isPartitioned(request, targetDialect)) {
+                    // Unique keys of a partitioned table must include the partition key
+                    return "CREATE TABLE IF NOT EXISTS " + vectorTableName + " (" +
+                            "id SERIAL NOT NULL, " +
+                            foreignKeyName + " INT NOT NULL UNIQUE, " +
+                            "embedding vector(" + embeddingProvider.getDimensions() + ")" + quantizedColumn + ", " +
+                            "PRIMARY KEY (id, " + foreignKeyName + ")" + foreignKeyConstraint +
+                            ") PARTITION BY HASH (" + foreignKeyName + ")";
+                }
                 return "CREATE TABLE IF NOT EXISTS " + vectorTableName + " (" +
                         "id SERIAL PRIMARY KEY NOT NULL, " +
-                        foreignKeyName + " INT NOT NULL, " +
-                        "embedding vector(1536), " +
-                        "FOREIGN KEY (" + foreignKeyName + ") REFERENCES " + originalTableName + " " + idName +
+                        foreignKeyName + " INT NOT NULL UNIQUE, " +
+                        "embedding vector(" + embeddingProvider.getDimensions() + ")" + quantizedColumn + foreignKeyConstraint +
                         ")";
             case ORACLE:
                 return "CREATE TABLE " + vectorTableName + " (" +
                         "id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL, " +
-                        foreignKeyName + " NUMBER NOT NULL, " +
-                        "embedding BLOB, " +
-                        "FOREIGN KEY (" + foreignKeyName + ") REFERENCES " + originalTableName + idName +
+                        foreignKeyName + " NUMBER NOT NULL UNIQUE, " +
+                        "embedding BLOB" + quantizedColumn + foreignKeyConstraint +
                         ")";
             case SQLSERVER:
                 return "CREATE TABLE " + vectorTableName + " (" +
                         "id INT IDENTITY(1,1) PRIMARY KEY NOT NULL, " +
+                        foreignKeyName + " INT NOT NULL UNIQUE, " +
+                        "embedding NVARCHAR(MAX)" + quantizedColumn + foreignKeyConstraint +
+                        ")";
+            default:
+                throw new SQLException("Unsupported dialect: " + targetDialect);
+        }
+    }
+
+    /**
+     * Generates the SQL for creating the staging table of a rebuild: no secondary indexes
+     * or constraints, and unlogged where the dialect supports it.
+     */
+    private String getCreateStagingTableSql(ProcessRequest request, String stagingTable,
+                                            DatabaseDialect targetDialect) throws Exception {
+        String stagingTableName = SqlIdentifiers.quote(stagingTable, targetDialect);
+        String foreignKeyName = SqlIdentifiers.quote(foreignKeyColumn(request), targetDialect);
+        String quantizedColumn = getQuantizedColumnSql(request, targetDialect);
+
+        switch (targetDialect) {
+            case MYSQL:
+                // AUTO_INCREMENT requires a key, and InnoDB clusters on it anyway
+                return "CREATE TABLE " + stagingTableName + " (" +
+                        "id INT AUTO_INCREMENT PRIMARY KEY NOT NULL, " +
+                        foreignKeyName + " INT NOT NULL, " +
+                        "embedding JSON" + quantizedColumn +
+                        ")";
+            case POSTGRESQL:
+                return "CREATE UNLOGGED TABLE " + stagingTableName + " (" +
+                        "id SERIAL NOT NULL, " +
+                        foreignKeyName + " INT NOT NULL, " +
+                        "embedding vector(" + embeddingProvider.getDimensions() + ")" + quantizedColumn +
+                        ")";
+            case ORACLE:
+                return "CREATE TABLE " + stagingTableName + " (" +
+                        "id NUMBER GENERATED BY DEFAULT AS IDENTITY NOT NULL, " +
+                        foreignKeyName + " NUMBER NOT NULL, " +
+                        "embedding BLOB" + quantizedColumn +
+                        ") NOLOGGING";
+            case SQLSERVER:
+                return "CREATE TABLE " + stagingTableName + " (" +
+                        "id INT IDENTITY(1,1) NOT NULL, " +
                         foreignKeyName + " INT NOT NULL, " +
-                        "embedding NVARCHAR(MAX), " +
-                        "FOREIGN KEY (" + foreignKeyName + ") REFERENCES " + originalTableName + idName +
+                        "embedding NVARCHAR(MAX)" + quantizedColumn +
                         ")";
             default:
-                throw new SQLException("Unsupported dialect: " + dataSourceService.getDialect());
+                throw new SQLException("Unsupported dialect: " + targetDialect);
+        }
+    }
+
+    /**
+     * Generates the SQL that makes a loaded staging table equivalent to the live vector table.
+     */
+    private List<String> getStagingIndexSql(ProcessRequest request, String stagingTable, JobDataSources dataSources)
+            throws Exception {
+        DatabaseDialect targetDialect = dataSources.getTargetDialect();
+        String stagingTableName = SqlIdentifiers.quote(stagingTable, targetDialect);
+        String foreignKeyName = SqlIdentifiers.quote(foreignKeyColumn(request), targetDialect);
+        String originalTableName = SqlIdentifiers.quote(request.getTableName(), targetDialect);
+        String idName = "(" + SqlIdentifiers.quote(request.getIdName(), targetDialect) + ")";
+
+        List<String> statements = new ArrayList<>();
+        switch (targetDialect) {
+            case MYSQL:
+                break;
+            case POSTGRESQL:
+                statements.add("ALTER TABLE " + stagingTableName + " SET LOGGED");
+                statements.add("ALTER TABLE " + stagingTableName + " ADD PRIMARY KEY (id)");
+                // Renamed after the swap (see swapVectorTable)
+                statements.add("CREATE INDEX " +
+                        SqlIdentifiers.quote(getHnswIndexName(request, stagingTable), targetDialect) +
+                        " ON " + stagingTableName + " USING hnsw " + getHnswIndexSpec(request));
+                break;
+            case ORACLE:
+                statements.add("ALTER TABLE " + stagingTableName + " LOGGING");
+                statements.add("ALTER TABLE " + stagingTableName + " ADD PRIMARY KEY (id)");
+                break;
+            case SQLSERVER:
+                statements.add("ALTER TABLE " + stagingTableName + " ADD PRIMARY KEY (id)");
+                break;
+            default:
+                throw new SQLException("Unsupported dialect: " + targetDialect);
+        }
+        statements.add("ALTER TABLE " + stagingTableName + " ADD UNIQUE (" + foreignKeyName + ")");
+        if (!dataSources.hasSeparateTarget()) {
+            statements.add("ALTER TABLE " + stagingTableName + " ADD FOREIGN KEY (" + foreignKeyName + ") " +
+                    "REFERENCES " + originalTableName + " " + idName);
+        }
+        return statements;
+    }
+
+    /**
+     * Replaces the live vector table with the staging table. The renames run in one
+     * transaction (or one RENAME TABLE on MySQL) so readers never see a half-built table.
+     */
+    private void swapVectorTable(Connection conn, ProcessRequest request, String stagingTable,
+                                 DatabaseDialect targetDialect) throws Exception {
+        String liveTable = request.getTableName() + "_vector";
+        String oldTable = liveTable + "_old";
+        String liveTableName = SqlIdentifiers.quote(liveTable, targetDialect);
+        String stagingTableName = SqlIdentifiers.quote(stagingTable, targetDialect);
+        dropTableIfExists(conn, oldTable, targetDialect);
+        boolean hasLiveTable = tableExists(conn, liveTable);
+
+        try (Statement stmt = conn.createStatement()) {
+            switch (targetDialect) {
+                case MYSQL:
+                    stmt.execute(hasLiveTable
+                            ? "RENAME TABLE " + liveTableName + " TO " + SqlIdentifiers.quote(oldTable, targetDialect) +
+                            ", " + stagingTableName + " TO " + liveTableName
+                            : "RENAME TABLE " + stagingTableName + " TO " + liveTableName);
+                    break;
+                case POSTGRESQL:
+                case SQLSERVER:
+                    conn.setAutoCommit(false);
+                    try {
+                        if (hasLiveTable) {
+                            stmt.execute(getRenameTableSql(liveTable, oldTable, targetDialect));
+                        }
+                        stmt.execute(getRenameTableSql(stagingTable, liveTable, targetDialect));
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    } finally {
+                        conn.setAutoCommit(true);
+                    }
+                    break;
+                case ORACLE:
+                    // DDL commits implicitly on Oracle, so the live table is briefly absent between the renames
+                    if (hasLiveTable) {
+                        stmt.execute(getRenameTableSql(liveTable, oldTable, targetDialect));
+                    }
+                    stmt.execute(getRenameTableSql(stagingTable, liveTable, targetDialect));
+                    break;
+                default:
+                    throw new SQLException("Unsupported dialect: " + targetDialect);
+            }
+        }
+
+        if (hasLiveTable) {
+            dropTableIfExists(conn, oldTable, targetDialect);
+        }
+        if (targetDialect == DatabaseDialect.POSTGRESQL) {
+            // The staging index keeps its name through the rename; it can take the live name once the old table is gone
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER INDEX IF EXISTS " +
+                        SqlIdentifiers.quote(getHnswIndexName(request, stagingTable), targetDialect) +
+                        " RENAME TO " + SqlIdentifiers.quote(getHnswIndexName(request, liveTable), targetDialect));
+            }
+        }
+    }
+
+    /**
+     * Generates the SQL for renaming a table based on the dialect.
+     */
+    private String getRenameTableSql(String from, String to, DatabaseDialect targetDialect) {
+        if (targetDialect == DatabaseDialect.SQLSERVER) {
+            return "EXEC sp_rename '" + from + "', '" + to + "'";
+        }
+        return "ALTER TABLE " + SqlIdentifiers.quote(from, targetDialect) + " RENAME TO " +
+                SqlIdentifiers.quote(to, targetDialect);
+    }
+
+    private void dropTableIfExists(Connection conn, String table, DatabaseDialect targetDialect) throws SQLException {
+        if (tableExists(conn, table)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE " + SqlIdentifiers.quote(table, targetDialect));
+            }
+        }
+    }
+
+    private boolean isPartitionedTable(Connection conn, String table) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass(?)")) {
+            stmt.setString(1, SqlIdentifiers.quote(table, DatabaseDialect.POSTGRESQL));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean relationExists(Connection conn, String relation) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            stmt.setString(1, SqlIdentifiers.quote(relation, DatabaseDialect.POSTGRESQL));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), conn.getSchema(), table, null)) {
+            return rs.next();
         }
     }
 }
@@ -1,11 +1,11 @@
 package com.ai.voice.assistant.aivabor_pluggin.service;
 
 
+import com.ai.voice.assistant.aivabor_pluggin.jfr.JobEvents;
 import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
 import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +14,11 @@ import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.sql.*;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -23,32 +28,194 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DataSourceService {
 
-    @Getter
     private DataSource dataSource;
 
-    @Getter
     private DatabaseDialect dialect;
 
+    // Where the vector table lives; the source DataSource itself unless the request names a target
+    private DataSource targetDataSource;
+
+    private DatabaseDialect targetDialect;
+
+    private boolean separateTarget;
+
+    // Jobs holding each shared pool; a replaced pool is only closed once no job holds it
+    private final Map<DataSource, Integer> leases = new IdentityHashMap<>();
+
+    private final Set<DataSource> retiredPools = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Initializes the shared pools for the request and holds them for one job. The pools stay
+     * open until the returned {@link JobDataSources} is closed, even if a later request with
+     * other connection settings replaces them. The job id, if any, tags the setup's JFR event.
+     */
+    public synchronized JobDataSources acquireDataSources(ProcessRequest request, String jobId) throws Exception {
+        initializeDataSource(request, jobId);
+        DataSource source = dataSource;
+        DataSource target = targetDataSource;
+        lease(source);
+        if (target != source) {
+            lease(target);
+        }
+        return new JobDataSources(source, dialect, target, targetDialect, () -> {
+            release(source);
+            if (target != source) {
+                release(target);
+            }
+        });
+    }
+
+    /**
+     * Opens pools of the job's own for the request, independent of the shared ones and closed
+     * with the returned {@link JobDataSources}.
+     */
+    public JobDataSources openJobDataSources(ProcessRequest request) throws Exception {
+        HikariDataSource source = openDataSource(request);
+        HikariDataSource target = null;
+        try {
+            DatabaseDialect sourceDialect = detectDialect(source);
+            if (request.getTargetUrl() == null) {
+                return new JobDataSources(source, sourceDialect, source, sourceDialect, source::close);
+            }
+            target = openDataSource(request.getTargetUrl(), request.getTargetUsername(), request.getTargetPassword());
+            HikariDataSource openedTarget = target;
+            return new JobDataSources(source, sourceDialect, target, detectDialect(target), () -> {
+                source.close();
+                openedTarget.close();
+            });
+        } catch (Exception e) {
+            source.close();
+            if (target != null) {
+                target.close();
+            }
+            throw e;
+        }
+    }
+
     /**
-     * Initializes the DataSource based on the provided request.
+     * Initializes the DataSource based on the provided request, and the target DataSource
+     * if the request has a separate target database.
      */
-    public void initializeDataSource(ProcessRequest request) throws Exception {
-        createDataSource(request);
-        testConnection();
-        detectDialect();
+    private synchronized void initializeDataSource(ProcessRequest request, String jobId) throws Exception {
+        JobEvents.DataSourceInit event = new JobEvents.DataSourceInit();
+        event.begin();
+        event.reused = isCurrentDataSource(dataSource, request.getUrl(), request.getUsername(), request.getPassword());
+        if (event.reused) {
+            log.info("Reusing the existing connection pool.");
+        } else {
+            createDataSource(request);
+            testConnection();
+            detectDialect();
+        }
+        initializeTargetDataSource(request);
+
+        if (event.shouldCommit()) {
+            event.jobId = jobId;
+            event.url = JobEvents.redactUrl(request.getUrl());
+            event.dialect = String.valueOf(dialect);
+            event.targetUrl = JobEvents.redactUrl(request.getTargetUrl());
+            event.targetDialect = String.valueOf(targetDialect);
+            event.commit();
+        }
+    }
+
+    /**
+     * Points the target at the source DataSource, or at a pool of its own for a separate target database.
+     */
+    private void initializeTargetDataSource(ProcessRequest request) throws Exception {
+        if (request.getTargetUrl() == null) {
+            closeSeparateTarget();
+            targetDataSource = dataSource;
+            targetDialect = dialect;
+            return;
+        }
+        if (separateTarget && isCurrentDataSource(targetDataSource, request.getTargetUrl(),
+                request.getTargetUsername(), request.getTargetPassword())) {
+            log.info("Reusing the existing target connection pool.");
+            return;
+        }
+        closeSeparateTarget();
+        targetDataSource = openDataSource(request.getTargetUrl(), request.getTargetUsername(), request.getTargetPassword());
+        separateTarget = true;
+        targetDialect = detectDialect(targetDataSource);
+        log.info("Detected target database dialect: {}", targetDialect);
+    }
+
+    private void closeSeparateTarget() {
+        if (separateTarget) {
+            retire(targetDataSource);
+        }
+        separateTarget = false;
+    }
+
+    private void lease(DataSource pool) {
+        leases.merge(pool, 1, Integer::sum);
+    }
+
+    private synchronized void release(DataSource pool) {
+        if (leases.merge(pool, -1, Integer::sum) == 0) {
+            leases.remove(pool);
+            if (retiredPools.remove(pool)) {
+                close(pool);
+            }
+        }
+    }
+
+    /**
+     * Closes a pool that is no longer shared, or defers that until the last job holding it ends.
+     */
+    private void retire(DataSource pool) {
+        if (leases.containsKey(pool)) {
+            retiredPools.add(pool);
+        } else {
+            close(pool);
+        }
+    }
+
+    private void close(DataSource pool) {
+        if (pool instanceof HikariDataSource hikari) {
+            hikari.close();
+        }
+    }
+
+    /**
+     * Checks whether the pool is open and was created for the same connection settings.
+     */
+    private boolean isCurrentDataSource(DataSource pool, String url, String username, String password) {
+        return pool instanceof HikariDataSource hikari && !hikari.isClosed()
+                && Objects.equals(hikari.getJdbcUrl(), url)
+                && Objects.equals(hikari.getUsername(), username)
+                && Objects.equals(hikari.getPassword(), password);
     }
 
     /**
      * Creates DataSource based on the request.
      */
     private void createDataSource(ProcessRequest request) throws Exception {
+        if (dataSource != null) {
+            retire(dataSource);
+        }
+        this.dataSource = openDataSource(request);
+    }
+
+    /**
+     * Opens a new connection pool for the request, independent of the shared DataSource.
+     */
+    public HikariDataSource openDataSource(ProcessRequest request) throws Exception {
+        return openDataSource(request.getUrl(), request.getUsername(), request.getPassword());
+    }
+
+    /**
+     * Opens a new connection pool for the given connection settings.
+     */
+    public HikariDataSource openDataSource(String url, String username, String password) throws Exception {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(request.getUrl());
-        config.setUsername(request.getUsername());
-        config.setPassword(request.getPassword());
-        config.setDriverClassName(getDriverClassNameFromUrl(request.getUrl()));
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setDriverClassName(getDriverClassNameFromUrl(url));
 
-        this.dataSource = new HikariDataSource(config);
+        return new HikariDataSource(config);
     }
 
     /**
@@ -67,10 +234,16 @@ public class DataSourceService {
      * Detects the database dialect.
      */
     private void detectDialect() throws Exception {
+        this.dialect = detectDialect(dataSource);
+        log.info("Detected database dialect: {}", this.dialect);
+    }
+
+    /**
+     * Detects the dialect of the given DataSource.
+     */
+    public DatabaseDialect detectDialect(DataSource dataSource) throws Exception {
         try (Connection conn = dataSource.getConnection()) {
-            String databaseProductName = conn.getMetaData().getDatabaseProductName();
-            this.dialect = mapDatabaseProductNameToDialect(databaseProductName);
-            log.info("Detected database dialect: {}", this.dialect);
+            return mapDatabaseProductNameToDialect(conn.getMetaData().getDatabaseProductName());
         }
     }
 
@@ -0,0 +1,129 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.batch.VectorBatchWriter;
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for the {@code <table>_vector_errors} dead-letter tables, which record the rows a job
+ * could not embed or write together with the failing stage and reason.
+ */
+@Service
+@Slf4j
+public class DeadLetterService {
+
+    private static final int MAX_REASON_LENGTH = 4000;
+
+    // Dead-letter tables known to exist, by JDBC URL and table name
+    private final Set<String> existingTables = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Inserts the failed rows on the given connection without committing, so they commit
+     * together with the batch they were part of. The table must have been created with
+     * {@link #ensureTable} before the job's loaders start.
+     */
+    public void write(Connection conn, DatabaseDialect dialect, String tableName, List<VectorBatchWriter.FailedRow> rows)
+            throws SQLException {
+        String errorTable = tableName + "_vector_errors";
+
+        String sql = "INSERT INTO " + SqlIdentifiers.quote(errorTable, dialect) +
+                " (source_id, stage, reason) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (VectorBatchWriter.FailedRow row : rows) {
+                if (row.getId() != null) {
+                    stmt.setInt(1, row.getId());
+                } else {
+                    stmt.setNull(1, Types.INTEGER);
+                }
+                stmt.setString(2, row.getStage());
+                String reason = row.getReason();
+                stmt.setString(3, reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        log.warn("Recorded {} failed rows in '{}'.", rows.size(), errorTable);
+    }
+
+    /**
+     * Creates the dead-letter table of the given source table unless it is known to exist. Called
+     * once per job before its loaders start, so the DDL never runs inside a batch's transaction
+     * and the loaders never wait for a connection of their own.
+     */
+    public void ensureTable(DataSource dataSource, DatabaseDialect dialect, String tableName) throws SQLException {
+        String errorTable = tableName + "_vector_errors";
+        String key = dataSource instanceof HikariDataSource hikari ? hikari.getJdbcUrl() + "|" + errorTable : null;
+        if (key != null && existingTables.contains(key)) {
+            return;
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            if (!tableExists(conn, errorTable)) {
+                createTable(conn, dialect, errorTable);
+            }
+        }
+        if (key != null) {
+            existingTables.add(key);
+        }
+    }
+
+    private void createTable(Connection conn, DatabaseDialect dialect, String errorTable) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(getCreateTableSql(dialect, errorTable));
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+            log.info("Created table '{}'.", errorTable);
+        } catch (SQLException e) {
+            // Another job or process may have created it concurrently
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+            }
+            if (!tableExists(conn, errorTable)) {
+                throw e;
+            }
+        }
+    }
+
+    private String getCreateTableSql(DatabaseDialect dialect, String errorTable) throws SQLException {
+        String tableName = SqlIdentifiers.quote(errorTable, dialect);
+        switch (dialect) {
+            case MYSQL:
+                return "CREATE TABLE " + tableName + " (" +
+                        "source_id INT, stage VARCHAR(32) NOT NULL, reason TEXT NOT NULL, " +
+                        "failed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+            case POSTGRESQL:
+                return "CREATE TABLE " + tableName + " (" +
+                        "source_id INT, stage VARCHAR(32) NOT NULL, reason TEXT NOT NULL, " +
+                        "failed_at TIMESTAMPTZ NOT NULL DEFAULT now())";
+            case ORACLE:
+                return "CREATE TABLE " + tableName + " (" +
+                        "source_id NUMBER(10), stage VARCHAR2(32) NOT NULL, reason VARCHAR2(4000) NOT NULL, " +
+                        "failed_at TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL)";
+            case SQLSERVER:
+                return "CREATE TABLE " + tableName + " (" +
+                        "source_id INT, stage NVARCHAR(32) NOT NULL, reason NVARCHAR(4000) NOT NULL, " +
+                        "failed_at DATETIME2 NOT NULL DEFAULT SYSUTCDATETIME())";
+            default:
+                throw new SQLException("Unsupported dialect: " + dialect);
+        }
+    }
+
+    private boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), conn.getSchema(), table, null)) {
+            return rs.next();
+        }
+    }
+}
@@ -1,22 +1,53 @@
 package com.ai.voice.assistant.aivabor_pluggin.service;
 
+import com.ai.voice.assistant.aivabor_pluggin.client.DockerEngineClient;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Service for Docker-related operations.
+ * <p>
+ * Talks to the Docker Engine API over its Unix socket when available, and falls back to
+ * the {@code docker} CLI otherwise (e.g. on Windows hosts).
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class DockerService {
 
+    private final DockerEngineClient engineClient;
+
+    private final ExecutorService outputReaders = Executors.newCachedThreadPool();
+
     /**
      * Retrieves the name of the Docker container running PostgreSQL.
      */
     public String getDockerContainerName(String containerFilter) throws Exception {
+        if (engineClient.isAvailable()) {
+            List<String> names = engineClient.listContainerNames(containerFilter);
+            if (names.isEmpty()) {
+                log.error("Failed to find a running PostgreSQL Docker container.");
+                return null;
+            }
+            return names.get(0);
+        }
+
         ProcessBuilder pb = new ProcessBuilder(
                 "docker", "ps", "--format", "{{.Names}}", "--filter", "name=" + containerFilter);
         pb.redirectErrorStream(true);
@@ -37,23 +68,13 @@ public class DockerService {
      * Retrieves the OS information from the Docker container.
      */
     public String getContainerOS(String containerName) throws Exception {
-        String command = String.format("docker exec %s cat /etc/os-release", containerName);
-        ProcessBuilder pb = new ProcessBuilder("/bin/sh", "-c", command);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            StringBuilder osRelease = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                osRelease.append(line).append("\n");
-            }
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                throw new Exception("Failed to get OS information from the container.");
-            }
-            return parseOSName(osRelease.toString());
+        StringBuilder osRelease = new StringBuilder();
+        int exitCode = exec(containerName, List.of("cat", "/etc/os-release"), null,
+                line -> osRelease.append(line).append("\n"), log::warn);
+        if (exitCode != 0) {
+            throw new Exception("Failed to get OS information from the container.");
         }
+        return parseOSName(osRelease.toString());
     }
 
     /**
@@ -62,22 +83,15 @@ public class DockerService {
     public boolean executeCommandsInContainer(String containerName, String[] commands) {
         try {
             String command = String.join(" && ", commands);
-            String dockerExecCommand = String.format("docker exec -u root %s /bin/sh -c \"%s\"", containerName, command);
-
-            ProcessBuilder pb = new ProcessBuilder("/bin/sh", "-c", dockerExecCommand);
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
 
             StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    log.info(line);
-                    output.append(line).append("\n");
-                }
-            }
-
-            int exitCode = process.waitFor();
+            int exitCode = exec(containerName, List.of("/bin/sh", "-c", command), "root", line -> {
+                log.info(line);
+                output.append(line).append("\n");
+            }, line -> {
+                log.warn(line);
+                output.append(line).append("\n");
+            });
 
             if (exitCode != 0) {
                 log.error("Shell command execution failed with exit code {}. Output:\n{}", exitCode, output.toString());
@@ -91,6 +105,100 @@ public class DockerService {
         }
     }
 
+    /**
+     * Executes a command inside the Docker container and returns its output.
+     */
+    public String getCommandOutputInContainer(String containerName, String command) throws Exception {
+        StringBuilder output = new StringBuilder();
+        StringBuilder errors = new StringBuilder();
+        int exitCode = exec(containerName, List.of("/bin/sh", "-c", command), null,
+                line -> output.append(line).append("\n"), line -> errors.append(line).append("\n"));
+        if (exitCode != 0) {
+            throw new Exception("Command failed in the container with exit code " + exitCode + ": " + output + errors);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Copies the contents of a local directory into a directory of the Docker container.
+     */
+    public boolean copyToContainer(String containerName, Path sourceDir, String containerDir) {
+        try {
+            if (engineClient.isAvailable()) {
+                engineClient.putArchive(containerName, containerDir, DockerEngineClient.tarDirectory(sourceDir));
+                return true;
+            }
+
+            // The trailing "/." makes docker cp copy the directory contents rather than the directory itself
+            ProcessBuilder pb = new ProcessBuilder(
+                    "docker", "cp", sourceDir.toAbsolutePath() + "/.", containerName + ":" + containerDir);
+            pb.redirectErrorStream(true);
+            Process process = pb.start();
+            String output = new String(process.getInputStream().readAllBytes());
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                log.error("docker cp failed with exit code {}. Output:\n{}", exitCode, output);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Error copying files into Docker container: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        outputReaders.shutdownNow();
+    }
+
+    /**
+     * Runs a command in the container, passing each stdout and stderr line to its consumer, and returns
+     * its exit code. The command is passed as an argument vector, so no host shell quoting is involved.
+     * Output is read on separate threads; the consumers see one line at a time.
+     */
+    private int exec(String containerName, List<String> command, String user,
+                     Consumer<String> stdoutConsumer, Consumer<String> stderrConsumer) throws Exception {
+        if (engineClient.isAvailable()) {
+            return engineClient.exec(containerName, command, user, stdoutConsumer, stderrConsumer);
+        }
+
+        List<String> cli = new ArrayList<>(List.of("docker", "exec"));
+        if (user != null) {
+            cli.add("-u");
+            cli.add(user);
+        }
+        cli.add(containerName);
+        cli.addAll(command);
+
+        Process process = new ProcessBuilder(cli).start();
+        try {
+            // Both pipes are drained concurrently so a full stderr pipe cannot stall the command
+            Object lock = new Object();
+            CompletableFuture.allOf(
+                    readLines(process.getInputStream(), stdoutConsumer, lock),
+                    readLines(process.getErrorStream(), stderrConsumer, lock)).get();
+            return process.waitFor();
+        } finally {
+            process.destroy();
+        }
+    }
+
+    private CompletableFuture<Void> readLines(InputStream stream, Consumer<String> lineConsumer, Object lock) {
+        return CompletableFuture.runAsync(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    synchronized (lock) {
+                        lineConsumer.accept(line);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, outputReaders);
+    }
+
     /**
      * Parses OS name from /etc/os-release content.
      */
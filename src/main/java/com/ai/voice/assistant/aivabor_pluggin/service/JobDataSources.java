@@ -0,0 +1,67 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+
+import javax.sql.DataSource;
+
+/**
+ * The source and target pools a job runs on, held for the whole job so that a request
+ * with other connection settings cannot replace or close them mid-run. Closing it ends
+ * the job's hold on the pools (see {@link DataSourceService}).
+ */
+public class JobDataSources implements AutoCloseable {
+
+    @Getter
+    private final DataSource dataSource;
+    @Getter
+    private final DatabaseDialect dialect;
+
+    // Where the vector table lives; the source DataSource itself unless the job has a separate target
+    @Getter
+    private final DataSource targetDataSource;
+    @Getter
+    private final DatabaseDialect targetDialect;
+
+    private final Runnable onClose;
+
+    public JobDataSources(DataSource dataSource, DatabaseDialect dialect, DataSource targetDataSource,
+                          DatabaseDialect targetDialect, Runnable onClose) {
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+        this.targetDataSource = targetDataSource;
+        this.targetDialect = targetDialect;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Whether the vector table lives in another database than the source table.
+     */
+    public boolean hasSeparateTarget() {
+        return targetDataSource != dataSource;
+    }
+
+    /**
+     * Returns the maximum size of the source connection pool.
+     */
+    public int getMaximumPoolSize() {
+        return getMaximumPoolSize(dataSource);
+    }
+
+    /**
+     * Returns the maximum size of the target connection pool.
+     */
+    public int getTargetMaximumPoolSize() {
+        return getMaximumPoolSize(targetDataSource);
+    }
+
+    private int getMaximumPoolSize(DataSource pool) {
+        return pool instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 1;
+    }
+
+    @Override
+    public void close() {
+        onClose.run();
+    }
+}
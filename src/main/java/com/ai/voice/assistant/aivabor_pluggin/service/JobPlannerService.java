@@ -0,0 +1,294 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.batch.BatchSizeTunerFactory;
+import com.ai.voice.assistant.aivabor_pluggin.embedding.EmbeddingProvider;
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.ai.voice.assistant.aivabor_pluggin.model.JobPlan;
+import com.ai.voice.assistant.aivabor_pluggin.model.ReadStrategy;
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+import com.ai.voice.assistant.aivabor_pluggin.model.WriteMode;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.vector.VectorQuantizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plans a processing job before it runs, from the source table's catalog statistics and metadata:
+ * the read strategy, partition count, initial batch size and write mode, and an estimated duration.
+ * <p>
+ * Row counts and widths come from the dialect's catalog ({@code pg_class}, {@code information_schema.TABLES},
+ * {@code sys.dm_db_partition_stats}, {@code ALL_TABLES}), so they are only as fresh as the last
+ * ANALYZE; the id column's type and indexes come from {@link DatabaseMetaData}.
+ */
+@Service
+@Slf4j
+public class JobPlannerService {
+
+    // Write payload aimed for per batch, before the tuner takes over
+    private static final long TARGET_BATCH_BYTES = 4L * 1024 * 1024;
+    // Rows per hash partition worth a worker and an HNSW index of its own
+    private static final long ROWS_PER_PARTITION = 1_000_000;
+    // Above this, loading an unindexed staging table and indexing it once beats upserting into the indexed
+    // table; only suggested, as a rebuild replaces the live table
+    private static final long REBUILD_MIN_ROWS = 100_000;
+
+    private static final Set<Integer> NUMERIC_TYPES = Set.of(
+            Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.NUMERIC, Types.DECIMAL);
+
+    private final BatchSizeTunerFactory batchSizeTunerFactory;
+    private final EmbeddingProvider embeddingProvider;
+    private final boolean apply;
+    private final double rowsPerSecond;
+
+    public JobPlannerService(BatchSizeTunerFactory batchSizeTunerFactory,
+                             EmbeddingProvider embeddingProvider,
+                             @Value("${aivabor.planner.apply:true}") boolean apply,
+                             @Value("${aivabor.planner.rows-per-second:2000}") double rowsPerSecond) {
+        this.batchSizeTunerFactory = batchSizeTunerFactory;
+        this.embeddingProvider = embeddingProvider;
+        this.apply = apply;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+     * Plans the request against the job's data sources. Settings given in the request are
+     * kept as they are; the others are chosen from the statistics.
+     */
+    public JobPlan plan(ProcessRequest request, JobDataSources dataSources) throws Exception {
+        DatabaseDialect dialect = dataSources.getDialect();
+        DatabaseDialect targetDialect = dataSources.getTargetDialect();
+        boolean separateTarget = dataSources.hasSeparateTarget();
+        List<String> warnings = new ArrayList<>();
+        JobPlan plan = JobPlan.builder()
+                .tableName(request.getTableName())
+                .dialect(dialect)
+                .targetDialect(targetDialect)
+                .warnings(warnings)
+                .build();
+
+        try (Connection conn = dataSources.getDataSource().getConnection()) {
+            readTableStatistics(conn, dialect, request.getTableName(), plan, warnings);
+            readIdMetadata(conn, request, plan);
+        }
+        String vectorTable = request.getTableName() + "_vector";
+        int existingPartitions = 0;
+        try (Connection conn = dataSources.getTargetDataSource().getConnection()) {
+            plan.setVectorTableExists(findTableName(conn.getMetaData(), conn.getCatalog(), conn.getSchema(),
+                    vectorTable) != null);
+            if (plan.isVectorTableExists() && targetDialect == DatabaseDialect.POSTGRESQL) {
+                existingPartitions = readPartitionCount(conn, vectorTable);
+            }
+        }
+        Long rows = plan.getEstimatedRows();
+
+        // Each partition worker holds a read and a write connection
+        int poolWorkers = separateTarget
+                ? Math.min(dataSources.getMaximumPoolSize(), dataSources.getTargetMaximumPoolSize())
+                : Math.max(1, dataSources.getMaximumPoolSize() / 2);
+        int partitions = 1;
+        if (request.getPartitions() != null) {
+            partitions = request.getPartitions();
+        } else if (existingPartitions > 0) {
+            // Rows are routed by the modulus of the existing table
+            partitions = existingPartitions;
+        } else if (targetDialect == DatabaseDialect.POSTGRESQL && plan.isIdNumeric() && !plan.isVectorTableExists()
+                && request.getWriteMode() != WriteMode.REBUILD && rows != null && rows >= 2 * ROWS_PER_PARTITION) {
+            partitions = (int) Math.min(poolWorkers, (rows + ROWS_PER_PARTITION - 1) / ROWS_PER_PARTITION);
+        }
+        boolean partitioned = partitions > 1 && targetDialect == DatabaseDialect.POSTGRESQL;
+        plan.setPartitions(partitioned ? partitions : 1);
+        plan.setReadStrategy(!partitioned ? ReadStrategy.STREAM
+                : separateTarget ? ReadStrategy.ID_MODULO : ReadStrategy.HASH_PARTITIONS);
+        plan.setWorkers(partitioned ? Math.min(partitions, poolWorkers) : 1);
+
+        plan.setWriteMode(request.getWriteMode() != null ? request.getWriteMode() : WriteMode.INCREMENTAL);
+        plan.setBatchSize(request.getBatchSize() != null ? request.getBatchSize()
+                : getBatchSize(request, plan.getAverageRowBytes()));
+        if (rows != null) {
+            plan.setEstimatedSeconds(rows / (rowsPerSecond * plan.getWorkers()));
+        }
+
+        if (!plan.isIdUnique() && !separateTarget) {
+            warnings.add("'" + request.getIdName() + "' has no unique index, which the vector table's " +
+                    "foreign key requires.");
+        }
+        if (partitions > 1 && !partitioned) {
+            warnings.add(partitions + " partitions were requested but only PostgreSQL targets support partitioned " +
+                    "vector tables; the load will fail.");
+        }
+        if (existingPartitions > 0 && request.getPartitions() != null && request.getPartitions() > 1
+                && request.getPartitions() != existingPartitions) {
+            warnings.add("'" + vectorTable + "' has " + existingPartitions + " partitions but " +
+                    request.getPartitions() + " were requested; the load will fail.");
+        }
+        if (existingPartitions > 0 && plan.getWriteMode() == WriteMode.REBUILD) {
+            warnings.add("'" + vectorTable + "' is partitioned, which REBUILD does not support; the load will fail.");
+        }
+        if (request.getWriteMode() == null && !partitioned && existingPartitions == 0
+                && rows != null && rows >= REBUILD_MIN_ROWS) {
+            warnings.add("writeMode REBUILD may be faster for about " + rows + " rows; it replaces '" +
+                    vectorTable + "' with a freshly indexed table.");
+        }
+        if (partitioned && !plan.isIdNumeric()) {
+            warnings.add("Partitioned loads split rows by '" + request.getIdName() + "', which is not numeric.");
+        }
+        return plan;
+    }
+
+    /**
+     * Fills the settings the request leaves open with the planned ones, unless
+     * {@code aivabor.planner.apply} is off.
+     */
+    public void applyPlan(JobPlan plan, ProcessRequest request) {
+        log.info("Job plan for '{}': {}", request.getTableName(), plan);
+        if (!apply) {
+            return;
+        }
+        if (request.getPartitions() == null && plan.getPartitions() > 1) {
+            request.setPartitions(plan.getPartitions());
+        }
+        if (request.getWriteMode() == null) {
+            request.setWriteMode(plan.getWriteMode());
+        }
+        if (request.getBatchSize() == null) {
+            request.setBatchSize(plan.getBatchSize());
+        }
+    }
+
+    /**
+     * Reads the estimated row count and average row width from the dialect's catalog.
+     */
+    private void readTableStatistics(Connection conn, DatabaseDialect dialect, String tableName,
+                                     JobPlan plan, List<String> warnings) throws Exception {
+        String sql;
+        String parameter = tableName;
+        switch (dialect) {
+            case POSTGRESQL:
+                // reltuples is -1 until the table is first analyzed
+                sql = "SELECT CASE WHEN c.reltuples >= 0 THEN c.reltuples::bigint END, " +
+                        "CASE WHEN c.reltuples > 0 THEN (pg_relation_size(c.oid) / c.reltuples)::bigint END " +
+                        "FROM pg_class c WHERE c.oid = to_regclass(?)";
+                parameter = SqlIdentifiers.quote(tableName, dialect);
+                break;
+            case MYSQL:
+                sql = "SELECT TABLE_ROWS, AVG_ROW_LENGTH FROM information_schema.TABLES " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+                break;
+            case SQLSERVER:
+                sql = "SELECT SUM(row_count), SUM(used_page_count) * 8192 / NULLIF(SUM(row_count), 0) " +
+                        "FROM sys.dm_db_partition_stats WHERE object_id = OBJECT_ID(?) AND index_id IN (0, 1)";
+                parameter = SqlIdentifiers.quote(tableName, dialect);
+                break;
+            case ORACLE:
+                sql = "SELECT NUM_ROWS, AVG_ROW_LEN FROM ALL_TABLES " +
+                        "WHERE OWNER = SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA') AND TABLE_NAME = ?";
+                break;
+            default:
+                throw new SQLException("Unsupported dialect: " + dialect);
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, parameter);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    long rows = rs.getLong(1);
+                    plan.setEstimatedRows(rs.wasNull() ? null : rows);
+                    long width = rs.getLong(2);
+                    plan.setAverageRowBytes(rs.wasNull() ? null : width);
+                }
+            }
+        } catch (SQLException e) {
+            // e.g. missing VIEW DATABASE STATE on SQL Server
+            warnings.add("Could not read catalog statistics: " + e.getMessage());
+            return;
+        }
+        if (plan.getEstimatedRows() == null) {
+            warnings.add("No catalog statistics for '" + tableName + "'; analyze the table for an estimate.");
+        }
+    }
+
+    /**
+     * Returns the number of hash partitions of an existing PostgreSQL table, or 0 if it is not partitioned.
+     */
+    private int readPartitionCount(Connection conn, String table) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT COUNT(*) FROM pg_inherits WHERE inhparent = to_regclass(?)")) {
+            stmt.setString(1, SqlIdentifiers.quote(table, DatabaseDialect.POSTGRESQL));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Reads whether the id column is numeric and whether it leads a (unique) index.
+     */
+    private void readIdMetadata(Connection conn, ProcessRequest request, JobPlan plan) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        String catalog = conn.getCatalog();
+        String schema = conn.getSchema();
+        String table = findTableName(metaData, catalog, schema, request.getTableName());
+        if (table == null) {
+            throw new SQLException("Table not found: " + request.getTableName());
+        }
+
+        try (ResultSet rs = metaData.getColumns(catalog, schema, table, null)) {
+            while (rs.next()) {
+                if (rs.getString("COLUMN_NAME").equalsIgnoreCase(request.getIdName())) {
+                    plan.setIdNumeric(NUMERIC_TYPES.contains(rs.getInt("DATA_TYPE")));
+                }
+            }
+        }
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table, false, true)) {
+            while (rs.next()) {
+                String column = rs.getString("COLUMN_NAME");
+                if (rs.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic && rs.getShort("ORDINAL_POSITION") == 1
+                        && column != null && column.equalsIgnoreCase(request.getIdName())) {
+                    plan.setIdIndexed(true);
+                    if (!rs.getBoolean("NON_UNIQUE")) {
+                        plan.setIdUnique(true);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the table name as stored in the catalog, which may have been folded to upper or lower case.
+     */
+    private String findTableName(DatabaseMetaData metaData, String catalog, String schema, String tableName)
+            throws SQLException {
+        for (String candidate : List.of(tableName, tableName.toUpperCase(), tableName.toLowerCase())) {
+            try (ResultSet rs = metaData.getTables(catalog, schema, candidate, null)) {
+                if (rs.next()) {
+                    return rs.getString("TABLE_NAME");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sizes the first batch to about {@link #TARGET_BATCH_BYTES} of source rows and encoded vectors.
+     */
+    private int getBatchSize(ProcessRequest request, Long averageRowBytes) {
+        VectorQuantization quantization = request.getQuantization() != null
+                ? request.getQuantization() : VectorQuantization.NONE;
+        int dimensions = embeddingProvider.getDimensions();
+        long rowBytes = (long) dimensions * Float.BYTES + (averageRowBytes != null ? averageRowBytes : 0)
+                + (quantization != VectorQuantization.NONE ? VectorQuantizer.codeSize(dimensions, quantization) : 0);
+        long size = TARGET_BATCH_BYTES / rowBytes;
+        return (int) Math.max(batchSizeTunerFactory.getMinSize(), Math.min(batchSizeTunerFactory.getMaxSize(), size));
+    }
+}
@@ -0,0 +1,174 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.jfr.JobEvents;
+import com.ai.voice.assistant.aivabor_pluggin.jfr.LoadStageEvents;
+import com.ai.voice.assistant.aivabor_pluggin.model.JobTimeline;
+import com.ai.voice.assistant.aivabor_pluggin.model.StageTiming;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps an in-process JFR recording of the job events and summarizes it into per-stage timelines,
+ * so production runs can be profiled without a redeploy or JVM flags.
+ * <p>
+ * The events are also written to any other recording, e.g. one started with
+ * {@code -XX:StartFlightRecording}, and can be inspected in JDK Mission Control.
+ */
+@Service
+@Slf4j
+public class JobProfilingService {
+
+    private static final String JOB_EVENT = "aivabor.Job";
+
+    // Stage events in pipeline order; the load stages carry their own stage time
+    private static final List<Class<? extends Event>> STAGE_EVENTS = List.of(
+            JobEvents.DataSourceInit.class,
+            JobEvents.PgVectorInstall.class,
+            LoadStageEvents.ReadBatch.class,
+            LoadStageEvents.RowProjection.class,
+            LoadStageEvents.Embedding.class,
+            LoadStageEvents.Encoding.class,
+            LoadStageEvents.WriteBatch.class,
+            LoadStageEvents.Commit.class);
+
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final long maxSize;
+
+    private Recording recording;
+
+    public JobProfilingService(@Value("${aivabor.jfr.enabled:true}") boolean enabled,
+                               @Value("${aivabor.jfr.max-age:1h}") Duration maxAge,
+                               @Value("${aivabor.jfr.max-size-mb:64}") long maxSizeMb) {
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.maxSize = maxSizeMb * 1024 * 1024;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        recording = new Recording();
+        recording.setName("aivabor-jobs");
+        recording.enable(JobEvents.Job.class);
+        for (Class<? extends Event> eventClass : STAGE_EVENTS) {
+            recording.enable(eventClass);
+        }
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize);
+        recording.start();
+        log.info("Recording job events to JFR (max age {}).", maxAge);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * Lists the finished jobs still held by the recording, newest first, without their stages.
+     */
+    public List<JobTimeline> listJobs() throws Exception {
+        List<JobTimeline> jobs = new ArrayList<>();
+        for (RecordedEvent event : readEvents()) {
+            if (event.getEventType().getName().equals(JOB_EVENT)) {
+                jobs.add(toTimeline(event, null));
+            }
+        }
+        jobs.sort(Comparator.comparing(JobTimeline::getStartTime).reversed());
+        return jobs;
+    }
+
+    /**
+     * Summarizes the recorded events of a finished job into the time spent per stage. Setup and
+     * load stage events are matched by the job id they carry.
+     * Returns null if the job is unknown or has aged out of the recording.
+     */
+    public JobTimeline getTimeline(String jobId) throws Exception {
+        List<RecordedEvent> events = readEvents();
+        RecordedEvent job = events.stream()
+                .filter(e -> e.getEventType().getName().equals(JOB_EVENT) && jobId.equals(e.getString("jobId")))
+                .findFirst()
+                .orElse(null);
+        if (job == null) {
+            return null;
+        }
+
+        Map<String, StageTiming> stages = new LinkedHashMap<>();
+        for (Class<? extends Event> eventClass : STAGE_EVENTS) {
+            EventType type = EventType.getEventType(eventClass);
+            stages.put(type.getName(), new StageTiming(type.getLabel(), 0, 0, 0, 0, 0));
+        }
+
+        long totalNanos = 0;
+        for (RecordedEvent event : events) {
+            StageTiming stage = stages.get(event.getEventType().getName());
+            if (stage == null || !jobId.equals(event.getString("jobId"))) {
+                continue;
+            }
+            long nanos;
+            if (event.hasField("stageTime")) {
+                nanos = event.getDuration("stageTime").toNanos();
+                stage.setRows(stage.getRows() + event.getLong("rows"));
+                stage.setBytes(stage.getBytes() + event.getLong("bytes"));
+            } else {
+                nanos = event.getDuration().toNanos();
+            }
+            stage.setEvents(stage.getEvents() + 1);
+            stage.setTimeMillis(stage.getTimeMillis() + nanos / 1e6);
+            totalNanos += nanos;
+        }
+
+        List<StageTiming> timings = new ArrayList<>();
+        for (StageTiming stage : stages.values()) {
+            if (stage.getEvents() > 0) {
+                stage.setPercent(totalNanos > 0 ? stage.getTimeMillis() * 1e6 * 100 / totalNanos : 0);
+                timings.add(stage);
+            }
+        }
+        return toTimeline(job, timings);
+    }
+
+    private JobTimeline toTimeline(RecordedEvent job, List<StageTiming> stages) {
+        return new JobTimeline(job.getString("jobId"), job.getString("table"), job.getString("status"),
+                job.getStartTime(), job.getDuration().toNanos() / 1e6, stages);
+    }
+
+    /**
+     * Dumps the recording to a temporary file and reads its events back.
+     */
+    private List<RecordedEvent> readEvents() throws Exception {
+        if (recording == null) {
+            throw new IllegalStateException("Job profiling is disabled (aivabor.jfr.enabled=false).");
+        }
+        Path dump = Files.createTempFile("aivabor-jobs", ".jfr");
+        try {
+            recording.dump(dump);
+            return RecordingFile.readAllEvents(dump);
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ai.voice.assistant.aivabor_pluggin.service;
 
 import com.ai.voice.assistant.aivabor_pluggin.installer.DockerPgVectorInstaller;
+import com.ai.voice.assistant.aivabor_pluggin.jfr.JobEvents;
 import com.ai.voice.assistant.aivabor_pluggin.installer.PgVectorInstaller;
 import com.ai.voice.assistant.aivabor_pluggin.installer.SandboxLinuxPgVectorInstaller;
 import com.ai.voice.assistant.aivabor_pluggin.installer.SandboxWindowsPgVectorInstaller;
@@ -9,14 +10,18 @@ import com.ai.voice.assistant.aivabor_pluggin.model.EnvironmentType;
 import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for managing the pgvector extension.
@@ -25,19 +30,18 @@ import java.util.Map;
 @Slf4j
 public class PgVectorService {
 
-    private final DataSourceService dataSourceService;
+    // Strategy pattern map; installers are only created when a database actually needs one
+    private final Map<EnvironmentType, ObjectProvider<? extends PgVectorInstaller>> installerMap = new EnumMap<>(EnvironmentType.class);
 
-    // Strategy pattern map
-    private final Map<EnvironmentType, PgVectorInstaller> installerMap = new EnumMap<>(EnvironmentType.class);
+    // JDBC URLs of databases known to have the extension enabled; see evictIfExtensionMissing
+    private final Set<String> installedTargets = ConcurrentHashMap.newKeySet();
 
     /**
      * Registers installers for different environments.
      */
-    public PgVectorService(DataSourceService dataSourceService,
-                           DockerPgVectorInstaller dockerInstaller,
-                           SandboxLinuxPgVectorInstaller sandboxLinuxInstaller,
-                           SandboxWindowsPgVectorInstaller sandboxWindowsInstaller) {
-        this.dataSourceService = dataSourceService;
+    public PgVectorService(ObjectProvider<DockerPgVectorInstaller> dockerInstaller,
+                           ObjectProvider<SandboxLinuxPgVectorInstaller> sandboxLinuxInstaller,
+                           ObjectProvider<SandboxWindowsPgVectorInstaller> sandboxWindowsInstaller) {
         installerMap.put(EnvironmentType.DOCKER, dockerInstaller);
         installerMap.put(EnvironmentType.SANDBOX_LINUX, sandboxLinuxInstaller);
         installerMap.put(EnvironmentType.SANDBOX_WINDOWS, sandboxWindowsInstaller);
@@ -46,8 +50,8 @@ public class PgVectorService {
     /**
      * Checks if pgvector is installed in the database.
      */
-    public boolean isPgVectorInstalled() throws SQLException {
-        try (Connection conn = dataSourceService.getDataSource().getConnection();
+    public boolean isPgVectorInstalled(DataSource targetDataSource) throws SQLException {
+        try (Connection conn = targetDataSource.getConnection();
              Statement stmt = conn.createStatement()) {
             String checkExtensionSql = "SELECT COUNT(*) FROM pg_extension WHERE extname = 'vector'";
             try (ResultSet rs = stmt.executeQuery(checkExtensionSql)) {
@@ -57,28 +61,88 @@ public class PgVectorService {
     }
 
     /**
-     * Installs pgvector if needed based on the environment.
+     * Checks if the pgvector extension files are present on the server, so that it
+     * only needs to be enabled rather than installed.
      */
-    public void installPgVectorIfNeeded(ProcessRequest request, EnvironmentType environmentType) throws Exception {
-        if (dataSourceService.getDialect() == DatabaseDialect.POSTGRESQL) {
-            if (!isPgVectorInstalled()) {
-                PgVectorInstaller installer = installerMap.get(environmentType);
-                if (installer == null) {
-                    throw new Exception("No installer found for environment: " + environmentType);
+    public boolean isPgVectorAvailable(DataSource targetDataSource) throws SQLException {
+        try (Connection conn = targetDataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            String checkAvailableSql = "SELECT COUNT(*) FROM pg_available_extensions WHERE name = 'vector'";
+            try (ResultSet rs = stmt.executeQuery(checkAvailableSql)) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Installs pgvector if needed based on the environment, in the database holding the vector table.
+     */
+    public void installPgVectorIfNeeded(ProcessRequest request, JobDataSources dataSources, String jobId,
+                                        EnvironmentType environmentType) throws Exception {
+        if (dataSources.getTargetDialect() == DatabaseDialect.POSTGRESQL) {
+            DataSource targetDataSource = dataSources.getTargetDataSource();
+            String targetUrl = getTargetUrl(request);
+            JobEvents.PgVectorInstall event = new JobEvents.PgVectorInstall();
+            event.begin();
+            if (installedTargets.contains(targetUrl)) {
+                log.info("pgvector extension is already installed.");
+                event.outcome = "cached";
+            } else if (!isPgVectorInstalled(targetDataSource)) {
+                if (isPgVectorAvailable(targetDataSource)) {
+                    log.info("pgvector extension files are already present on the server.");
+                    event.outcome = "enabled";
+                } else {
+                    ObjectProvider<? extends PgVectorInstaller> installer = installerMap.get(environmentType);
+                    if (installer == null) {
+                        throw new Exception("No installer found for environment: " + environmentType);
+                    }
+                    installer.getObject().installPgVector(request);
+                    event.outcome = "installed";
                 }
-                installer.installPgVector(request);
-                enablePgVectorExtensionInDatabase();
+                enablePgVectorExtensionInDatabase(targetDataSource);
             } else {
                 log.info("pgvector extension is already installed.");
+                event.outcome = "installed-already";
+            }
+            installedTargets.add(targetUrl);
+
+            if (event.shouldCommit()) {
+                event.jobId = jobId;
+                event.url = JobEvents.redactUrl(targetUrl);
+                event.environment = String.valueOf(environmentType);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Forgets that the request's target database has the extension if the error says the vector
+     * type does not exist, e.g. because the extension was dropped after it was cached, so the next
+     * job installs it again. Returns whether it did.
+     */
+    public boolean evictIfExtensionMissing(ProcessRequest request, Exception error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            // 42704 is undefined_object, raised for e.g. 'type "vector" does not exist'
+            if (cause instanceof SQLException sqlException && "42704".equals(sqlException.getSQLState())
+                    && sqlException.getMessage() != null && sqlException.getMessage().contains("\"vector\"")) {
+                if (installedTargets.remove(getTargetUrl(request))) {
+                    log.warn("pgvector extension is missing from a database it was installed in; it will be reinstalled.");
+                }
+                return true;
             }
         }
+        return false;
+    }
+
+    private String getTargetUrl(ProcessRequest request) {
+        return request.getTargetUrl() != null ? request.getTargetUrl() : request.getUrl();
     }
 
     /**
      * Enables the pgvector extension in the database.
      */
-    private void enablePgVectorExtensionInDatabase() throws Exception {
-        try (Connection conn = dataSourceService.getDataSource().getConnection();
+    private void enablePgVectorExtensionInDatabase(DataSource targetDataSource) throws Exception {
+        try (Connection conn = targetDataSource.getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.execute("CREATE EXTENSION IF NOT EXISTS vector");
             log.info("Successfully enabled pgvector extension in the database.");
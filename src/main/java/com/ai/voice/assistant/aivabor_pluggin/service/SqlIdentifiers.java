@@ -0,0 +1,40 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+
+/**
+ * Quotes SQL identifiers for a dialect and names the vector table columns shared by the services
+ * that create, load, search and export vector tables.
+ * <p>
+ * Identifiers are checked by {@link DataProcessingService#validateIdentifiers} before they get
+ * here; quoting keeps them from clashing with reserved words. MySQL only accepts double-quoted
+ * identifiers in {@code ANSI_QUOTES} mode, so it gets backticks, and SQL Server gets brackets.
+ */
+public final class SqlIdentifiers {
+
+    private SqlIdentifiers() {
+    }
+
+    /**
+     * Quotes an identifier for the dialect, doubling any closing quote inside it.
+     */
+    public static String quote(String identifier, DatabaseDialect dialect) {
+        switch (dialect) {
+            case MYSQL:
+                return "`" + identifier.replace("`", "``") + "`";
+            case SQLSERVER:
+                return "[" + identifier.replace("]", "]]") + "]";
+            case POSTGRESQL:
+            case ORACLE:
+            default:
+                return "\"" + identifier.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    /**
+     * Name of the vector table column referencing the source row.
+     */
+    public static String foreignKeyColumn(String tableName, String idName) {
+        return "fk_" + tableName + "_" + idName;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.ai.voice.assistant.aivabor_pluggin.request.ExportRequest;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.vector.VectorFileWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Service for exporting embeddings to columnar vector files (see {@link VectorFileWriter}).
+ */
+@Service
+@Slf4j
+public class VectorExportService {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final DataSourceService dataSourceService;
+    private final DataProcessingService dataProcessingService;
+    private final Path exportDir;
+
+    public VectorExportService(DataSourceService dataSourceService,
+                               DataProcessingService dataProcessingService,
+                               @Value("${aivabor.export.dir:exports}") String exportDir) {
+        this.dataSourceService = dataSourceService;
+        this.dataProcessingService = dataProcessingService;
+        this.exportDir = Path.of(exportDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Opens a writer for the job's export file, or returns null if the request does not ask for one.
+     */
+    public VectorFileWriter openWriter(ProcessRequest request) throws Exception {
+        if (request.getExportFileName() == null) {
+            return null;
+        }
+        return new VectorFileWriter(resolveExportPath(request.getExportFileName()), request.getExportQuantization());
+    }
+
+    /**
+     * Exports an existing vector table, ordered by source id. Returns the number of exported vectors.
+     */
+    public int exportTable(ExportRequest request) throws Exception {
+        ProcessRequest processRequest = ProcessRequest.builder()
+                .url(request.getUrl())
+                .username(request.getUsername())
+                .password(request.getPassword())
+                .tableName(request.getTableName())
+                .idName(request.getIdName())
+                .fields(List.of())
+                .build();
+        dataProcessingService.validateIdentifiers(processRequest);
+        Path path = resolveExportPath(request.getFileName());
+
+        try (JobDataSources dataSources = dataSourceService.acquireDataSources(processRequest, null);
+             VectorFileWriter writer = new VectorFileWriter(path, request.getQuantization());
+             Connection conn = dataSources.getDataSource().getConnection()) {
+            DatabaseDialect dialect = dataSources.getDialect();
+            String foreignKeyColumn = SqlIdentifiers.quote(
+                    SqlIdentifiers.foreignKeyColumn(request.getTableName(), request.getIdName()), dialect);
+            String sql = "SELECT " + foreignKeyColumn + ", embedding FROM " +
+                    SqlIdentifiers.quote(request.getTableName() + "_vector", dialect) + " ORDER BY " + foreignKeyColumn;
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        float[] embedding = dataProcessingService.readEmbedding(rs, 2, dialect);
+                        if (embedding != null) {
+                            writer.append(rs.getInt(1), embedding);
+                        }
+                    }
+                }
+            }
+            writer.finish();
+            log.info("Exported {} vectors of '{}' to {}.", writer.getCount(), request.getTableName(), path);
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * Resolves a file name within the export directory, rejecting names that escape it.
+     */
+    private Path resolveExportPath(String fileName) throws Exception {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("An export file name is required.");
+        }
+        Path path = exportDir.resolve(fileName).normalize();
+        if (!path.startsWith(exportDir) || path.equals(exportDir)) {
+            throw new IllegalArgumentException("Export file must be inside " + exportDir + ": " + fileName);
+        }
+        Files.createDirectories(path.getParent());
+        return path;
+    }
+}
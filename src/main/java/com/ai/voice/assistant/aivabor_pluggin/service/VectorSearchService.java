@@ -0,0 +1,276 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.ai.voice.assistant.aivabor_pluggin.model.SearchResult;
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.request.SearchRequest;
+import com.ai.voice.assistant.aivabor_pluggin.vector.VectorQuantizer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Service for nearest-neighbour search over vector tables.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class VectorSearchService {
+
+    private static final int DEFAULT_TOP_K = 10;
+    private static final int MIN_EF_SEARCH = 40;
+    private static final int MAX_EF_SEARCH = 1000;
+    // An HNSW scan returns at most ef_search rows, so larger results would be silently cut short
+    private static final int MAX_TOP_K = MAX_EF_SEARCH;
+    private static final int DEFAULT_RERANK_FACTOR = 4;
+    private static final int SCAN_FETCH_SIZE = 1000;
+    private static final int RERANK_BATCH_SIZE = 500;
+
+    private final DataSourceService dataSourceService;
+    private final DataProcessingService dataProcessingService;
+
+    private final ExecutorService searchExecutor =
+            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Returns the source ids closest to the embedded query. Partitioned tables are searched
+     * partition by partition in parallel and the per-partition results merged. On quantized
+     * tables the compact codes are scanned first and the best candidates re-ranked by their
+     * full-precision embeddings.
+     */
+    public List<SearchResult> search(SearchRequest request) throws Exception {
+        ProcessRequest processRequest = ProcessRequest.builder()
+                .url(request.getUrl())
+                .username(request.getUsername())
+                .password(request.getPassword())
+                .tableName(request.getTableName())
+                .idName(request.getIdName())
+                .fields(List.of())
+                .build();
+        dataProcessingService.validateIdentifiers(processRequest);
+        if (request.getTopK() != null && (request.getTopK() < 1 || request.getTopK() > MAX_TOP_K)) {
+            throw new IllegalArgumentException("topK must be between 1 and " + MAX_TOP_K + ": " + request.getTopK());
+        }
+        if (request.getCandidates() != null && request.getCandidates() < 1) {
+            throw new IllegalArgumentException("candidates must be positive: " + request.getCandidates());
+        }
+        try (JobDataSources dataSources = dataSourceService.acquireDataSources(processRequest, null)) {
+            return search(request, dataSources.getDataSource(), dataSources.getDialect());
+        }
+    }
+
+    private List<SearchResult> search(SearchRequest request, DataSource dataSource, DatabaseDialect dialect)
+            throws Exception {
+        VectorQuantization quantization = request.getQuantization() != null
+                ? request.getQuantization() : VectorQuantization.NONE;
+        int topK = request.getTopK() != null ? request.getTopK() : DEFAULT_TOP_K;
+        int candidates = quantization == VectorQuantization.NONE ? topK
+                : Math.max(topK, request.getCandidates() != null ? request.getCandidates() : topK * DEFAULT_RERANK_FACTOR);
+        float[] query = dataProcessingService.getEmbedding(request.getQuery());
+        String queryVector = Arrays.toString(query);
+        String foreignKeyColumn = SqlIdentifiers.foreignKeyColumn(request.getTableName(), request.getIdName());
+        String vectorTable = request.getTableName() + "_vector";
+
+        if (dialect != DatabaseDialect.POSTGRESQL) {
+            // No vector index on these dialects, so the codes are scanned here
+            return scanTable(dataSource, dialect, vectorTable, foreignKeyColumn, query, quantization, topK, candidates);
+        }
+
+        List<String> partitions;
+        try (Connection conn = dataSource.getConnection()) {
+            partitions = getPartitionNames(conn, vectorTable);
+        }
+        if (partitions.isEmpty()) {
+            return searchTable(dataSource, vectorTable, foreignKeyColumn, queryVector, quantization, topK, candidates);
+        }
+
+        List<Future<List<SearchResult>>> futures = new ArrayList<>();
+        for (String partition : partitions) {
+            futures.add(searchExecutor.submit(() ->
+                    searchTable(dataSource, partition, foreignKeyColumn, queryVector, quantization, topK, candidates)));
+        }
+        List<SearchResult> results = new ArrayList<>();
+        for (Future<List<SearchResult>> future : futures) {
+            try {
+                results.addAll(future.get());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        results.sort(Comparator.comparingDouble(SearchResult::getDistance));
+        return new ArrayList<>(results.subList(0, Math.min(topK, results.size())));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs an L2 nearest-neighbour query against one PostgreSQL table or partition. On quantized
+     * tables the inner query orders by the codes and the outer one re-ranks its candidates.
+     */
+    private List<SearchResult> searchTable(DataSource dataSource, String table, String foreignKeyColumn,
+                                           String queryVector, VectorQuantization quantization, int topK,
+                                           int candidates) throws SQLException {
+        String foreignKeyName = SqlIdentifiers.quote(foreignKeyColumn, DatabaseDialect.POSTGRESQL);
+        String tableName = SqlIdentifiers.quote(table, DatabaseDialect.POSTGRESQL);
+        String sql;
+        switch (quantization) {
+            case NONE:
+                sql = "SELECT " + foreignKeyName + ", embedding <-> ?::vector AS distance " +
+                        "FROM " + tableName + " ORDER BY embedding <-> ?::vector LIMIT ?";
+                break;
+            case HALF:
+            case BINARY:
+                String codeDistance = quantization == VectorQuantization.HALF
+                        ? "embedding_q <-> ?::halfvec"
+                        : "embedding_q <~> binary_quantize(?::vector)";
+                sql = "SELECT " + foreignKeyName + ", embedding <-> ?::vector AS distance FROM (" +
+                        "SELECT " + foreignKeyName + ", embedding FROM " + tableName +
+                        " WHERE embedding_q IS NOT NULL ORDER BY " + codeDistance + " LIMIT " + candidates +
+                        ") c ORDER BY distance LIMIT ?";
+                break;
+            default:
+                throw new SQLException("Unsupported quantization on PostgreSQL: " + quantization);
+        }
+
+        List<SearchResult> results = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                // HNSW returns at most ef_search candidates
+                int efSearch = Math.min(MAX_EF_SEARCH, Math.max(MIN_EF_SEARCH, candidates));
+                stmt.execute("SET LOCAL hnsw.ef_search = " + efSearch);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, queryVector);
+                stmt.setString(2, queryVector);
+                stmt.setInt(3, topK);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        results.add(new SearchResult(rs.getInt(1), rs.getDouble(2)));
+                    }
+                }
+            }
+            conn.commit();
+        }
+        return results;
+    }
+
+    /**
+     * Scans a whole vector table on dialects without a vector index, keeping the candidates with the
+     * smallest code distance in a bounded heap, then re-ranks them at full precision.
+     */
+    private List<SearchResult> scanTable(DataSource dataSource, DatabaseDialect dialect, String table,
+                                         String foreignKeyColumn, float[] query, VectorQuantization quantization,
+                                         int topK, int candidates) throws Exception {
+        byte[] queryCode = quantization == VectorQuantization.BINARY
+                ? VectorQuantizer.encode(query, quantization) : null;
+        String column = quantization == VectorQuantization.NONE ? "embedding" : "embedding_q";
+        String sql = "SELECT " + SqlIdentifiers.quote(foreignKeyColumn, dialect) + ", " + column +
+                " FROM " + SqlIdentifiers.quote(table, dialect);
+
+        // Max-heap on distance, so the worst candidate is evicted first
+        PriorityQueue<SearchResult> nearest =
+                new PriorityQueue<>(Comparator.comparingDouble(SearchResult::getDistance).reversed());
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(SCAN_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        double distance;
+                        if (quantization == VectorQuantization.NONE) {
+                            float[] embedding = dataProcessingService.readEmbedding(rs, 2, dialect);
+                            if (embedding == null) {
+                                continue;
+                            }
+                            distance = VectorQuantizer.l2Distance(query, embedding);
+                        } else {
+                            byte[] code = rs.getBytes(2);
+                            if (code == null) {
+                                continue;
+                            }
+                            distance = VectorQuantizer.approximateDistance(query, queryCode, code, quantization);
+                        }
+                        nearest.add(new SearchResult(rs.getInt(1), distance));
+                        if (nearest.size() > candidates) {
+                            nearest.poll();
+                        }
+                    }
+                }
+            }
+
+            List<SearchResult> results = quantization == VectorQuantization.NONE
+                    ? new ArrayList<>(nearest)
+                    : rerank(conn, dialect, table, foreignKeyColumn, query, new ArrayList<>(nearest));
+            results.sort(Comparator.comparingDouble(SearchResult::getDistance));
+            return new ArrayList<>(results.subList(0, Math.min(topK, results.size())));
+        }
+    }
+
+    /**
+     * Replaces the code distances of the candidates by exact L2 distances of their full-precision embeddings.
+     */
+    private List<SearchResult> rerank(Connection conn, DatabaseDialect dialect, String table, String foreignKeyColumn,
+                                      float[] query, List<SearchResult> candidates) throws Exception {
+        List<SearchResult> results = new ArrayList<>();
+        String foreignKeyName = SqlIdentifiers.quote(foreignKeyColumn, dialect);
+        // Batched to stay below IN-list and parameter limits (e.g. 1000 items on Oracle)
+        for (int from = 0; from < candidates.size(); from += RERANK_BATCH_SIZE) {
+            List<SearchResult> batch = candidates.subList(from, Math.min(from + RERANK_BATCH_SIZE, candidates.size()));
+            String sql = "SELECT " + foreignKeyName + ", embedding FROM " + SqlIdentifiers.quote(table, dialect) +
+                    " WHERE " + foreignKeyName + " IN (" +
+                    String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setInt(i + 1, batch.get(i).getId());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        float[] embedding = dataProcessingService.readEmbedding(rs, 2, dialect);
+                        if (embedding != null) {
+                            results.add(new SearchResult(rs.getInt(1), VectorQuantizer.l2Distance(query, embedding)));
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<String> getPartitionNames(Connection conn, String table) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass(?) ORDER BY c.relname")) {
+            stmt.setString(1, SqlIdentifiers.quote(table, DatabaseDialect.POSTGRESQL));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    partitions.add(rs.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+}
@@ -0,0 +1,187 @@
+package com.ai.voice.assistant.aivabor_pluggin.vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Detects near-duplicate texts using MinHash signatures and LSH banding.
+ * <p>
+ * Each registered representative carries a payload (e.g. its embedding) that is
+ * handed back for any later text whose estimated Jaccard similarity is at or above
+ * the configured threshold. Thread-safe, so that the parallel loaders of a job can share
+ * one instance and find duplicates across partitions.
+ */
+public class NearDuplicateDetector<T> {
+
+    public static final int DEFAULT_MAX_REPRESENTATIVES = 100_000;
+
+    private static final int NUM_HASHES = 128;
+    private static final int SHINGLE_SIZE = 5;
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final double threshold;
+    private final int maxRepresentatives;
+    private final int bands;
+    private final int rows;
+    private final long[] hashSeeds = new long[NUM_HASHES];
+
+    private final List<Map<Long, List<Integer>>> bandBuckets = new ArrayList<>();
+    private final List<int[]> signatures = new ArrayList<>();
+    private final List<T> payloads = new ArrayList<>();
+
+    public NearDuplicateDetector(double threshold) {
+        this(threshold, DEFAULT_MAX_REPRESENTATIVES);
+    }
+
+    public NearDuplicateDetector(double threshold, int maxRepresentatives) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("Jaccard threshold must be in (0, 1]: " + threshold);
+        }
+        this.threshold = threshold;
+        this.maxRepresentatives = maxRepresentatives;
+
+        int[] banding = chooseBanding(threshold);
+        this.bands = banding[0];
+        this.rows = banding[1];
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            hashSeeds[i] = random.nextLong();
+        }
+        for (int b = 0; b < bands; b++) {
+            bandBuckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Computes the MinHash signature of the normalized character shingles of the text.
+     */
+    public int[] signature(String text) {
+        String normalized = normalize(text);
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        int shingleCount = Math.max(1, normalized.length() - SHINGLE_SIZE + 1);
+        for (int s = 0; s < shingleCount; s++) {
+            long shingleHash = hashShingle(normalized, s, Math.min(normalized.length(), s + SHINGLE_SIZE));
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int h = (int) (mix64(shingleHash ^ hashSeeds[i]) >>> 33);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the payload of a registered representative similar to the signature, or null.
+     */
+    public synchronized T findNearDuplicate(int[] signature) {
+        for (int b = 0; b < bands; b++) {
+            List<Integer> candidates = bandBuckets.get(b).get(bandKey(signature, b));
+            if (candidates == null) {
+                continue;
+            }
+            for (int candidate : candidates) {
+                if (estimateJaccard(signature, signatures.get(candidate)) >= threshold) {
+                    return payloads.get(candidate);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Registers a representative; ignored once the representative cap is reached.
+     */
+    public synchronized void register(int[] signature, T payload) {
+        if (signatures.size() >= maxRepresentatives) {
+            return;
+        }
+        int index = signatures.size();
+        signatures.add(signature);
+        payloads.add(payload);
+        for (int b = 0; b < bands; b++) {
+            bandBuckets.get(b).computeIfAbsent(bandKey(signature, b), k -> new ArrayList<>(1)).add(index);
+        }
+    }
+
+    public synchronized int getRepresentativeCount() {
+        return signatures.size();
+    }
+
+    /**
+     * Picks the (bands, rows) split of the signature whose LSH S-curve midpoint
+     * (1/b)^(1/r) is closest to the threshold.
+     */
+    private static int[] chooseBanding(double threshold) {
+        int bestBands = NUM_HASHES;
+        int bestRows = 1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int r = 1; r <= NUM_HASHES; r++) {
+            if (NUM_HASHES % r != 0) {
+                continue;
+            }
+            int b = NUM_HASHES / r;
+            double distance = Math.abs(Math.pow(1.0 / b, 1.0 / r) - threshold);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestBands = b;
+                bestRows = r;
+            }
+        }
+        return new int[]{bestBands, bestRows};
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        int start = band * rows;
+        for (int i = start; i < start + rows; i++) {
+            key = key * 31 + signature[i];
+        }
+        return mix64(key);
+    }
+
+    private static double estimateJaccard(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    /**
+     * Lower-cases and collapses whitespace so casing and spacing differences do not matter.
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    private static long hashShingle(String text, int start, int end) {
+        long h = 1125899906842597L;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
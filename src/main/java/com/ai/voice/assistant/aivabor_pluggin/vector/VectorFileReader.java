@@ -0,0 +1,142 @@
+package com.ai.voice.assistant.aivabor_pluggin.vector;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Zero-copy random access to a vector file written by {@link VectorFileWriter}.
+ * <p>
+ * The row matrix is memory-mapped in segments of whole rows, since a single mapping is limited
+ * to 2 GB. Rows are handed out as buffer slices over the mapping; nothing is read until touched.
+ * The reader is safe for concurrent use.
+ */
+public class VectorFileReader implements Closeable {
+
+    private final FileChannel channel;
+    private final VectorQuantization quantization;
+    private final ByteOrder codeOrder;
+    private final int dimensions;
+    private final int rowBytes;
+    private final int count;
+    private final int rowsPerSegment;
+    private final MappedByteBuffer[] segments;
+    private final IntBuffer ids;
+
+    public VectorFileReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(VectorFileWriter.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < VectorFileWriter.HEADER_SIZE || header.getInt() != VectorFileWriter.MAGIC) {
+                throw new IOException("Not a vector file: " + path);
+            }
+            int version = header.getInt();
+            if (version != 1 && version != VectorFileWriter.VERSION) {
+                throw new IOException("Unsupported vector file version " + version + ": " + path);
+            }
+            this.codeOrder = version == 1 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+            this.quantization = VectorFileWriter.quantizationOf(header.getInt());
+            this.dimensions = header.getInt();
+            this.rowBytes = header.getInt();
+            header.getInt();
+            this.count = Math.toIntExact(header.getLong());
+            long vectorsOffset = header.getLong();
+            long idsOffset = header.getLong();
+
+            this.rowsPerSegment = rowBytes > 0 ? Integer.MAX_VALUE / rowBytes : 1;
+            int segmentCount = count == 0 ? 0 : (count - 1) / rowsPerSegment + 1;
+            this.segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long rows = Math.min(rowsPerSegment, count - (long) i * rowsPerSegment);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        vectorsOffset + (long) i * rowsPerSegment * rowBytes, rows * rowBytes);
+            }
+            this.ids = channel.map(FileChannel.MapMode.READ_ONLY, idsOffset, (long) count * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public VectorQuantization getQuantization() {
+        return quantization;
+    }
+
+    /**
+     * Byte order of the quantized codes in the row matrix.
+     */
+    public ByteOrder getCodeOrder() {
+        return codeOrder;
+    }
+
+    /**
+     * Source id of the given row.
+     */
+    public int id(int row) {
+        return ids.get(checkRow(row));
+    }
+
+    /**
+     * Raw bytes of the given row as a slice of the mapping, without copying. The slice is
+     * little-endian, as are quantized codes except in version 1 files (see {@link #getCodeOrder()}).
+     */
+    public ByteBuffer row(int row) {
+        checkRow(row);
+        MappedByteBuffer segment = segments[row / rowsPerSegment];
+        return segment.slice((row % rowsPerSegment) * rowBytes, rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Copies the given row into a new array, decoding quantized codes where possible.
+     */
+    public float[] vector(int row) {
+        ByteBuffer bytes = row(row);
+        switch (quantization) {
+            case NONE:
+                float[] vector = new float[dimensions];
+                bytes.asFloatBuffer().get(vector);
+                return vector;
+            case HALF:
+            case INT8:
+                byte[] code = new byte[rowBytes];
+                bytes.get(code);
+                return VectorQuantizer.decode(code, quantization, codeOrder);
+            default:
+                throw new UnsupportedOperationException("Rows of a " + quantization + " file can only be read as codes.");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= count) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + count);
+        }
+        return row;
+    }
+}
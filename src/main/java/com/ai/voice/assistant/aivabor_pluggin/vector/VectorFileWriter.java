@@ -0,0 +1,210 @@
+package com.ai.voice.assistant.aivabor_pluggin.vector;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Writes {@code (id, embedding)} pairs to a columnar vector file that {@link VectorFileReader} can map.
+ * <p>
+ * Layout, little-endian throughout: a {@value #HEADER_SIZE}-byte header, then the row matrix (one row
+ * of {@code dimensions} floats, or one little-endian {@link VectorQuantizer} code, per vector, back to
+ * back), then the id column as 32-bit ints. The header stores the quantization as a fixed code (see
+ * {@link #quantizationCode}). The file is written to a temporary file of its own next to its
+ * destination and only moved there by {@link #finish()}, so readers never see a partial file and
+ * concurrent exports to the same name do not mix. Appends are synchronized so that
+ * parallel loaders can share one writer.
+ */
+public class VectorFileWriter implements Closeable {
+
+    public static final int MAGIC = 0x46564941; // "AIVF" read as a little-endian int
+    // Version 1 stored quantized codes big-endian
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 64;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    // What a plain file write gets under the usual umask of 022
+    private static final Set<PosixFilePermission> DEFAULT_PERMISSIONS = PosixFilePermissions.fromString("rw-r--r--");
+
+    private final Path path;
+    private final Path tempPath;
+    private final VectorQuantization quantization;
+    private final FileChannel channel;
+
+    private ByteBuffer buffer;
+    private int dimensions = -1;
+    private int rowBytes;
+    private int[] ids = new int[1024];
+    private int count;
+    private boolean finished;
+
+    public VectorFileWriter(Path path, VectorQuantization quantization) throws IOException {
+        this.path = path;
+        this.tempPath = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName() + ".", ".tmp");
+        this.quantization = quantization != null ? quantization : VectorQuantization.NONE;
+        try {
+            this.channel = FileChannel.open(tempPath, StandardOpenOption.WRITE);
+            channel.position(HEADER_SIZE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+    }
+
+    /**
+     * Appends one vector. All vectors of a file must have the same number of dimensions.
+     */
+    public synchronized void append(int id, float[] embedding) throws IOException {
+        if (dimensions < 0) {
+            dimensions = embedding.length;
+            rowBytes = quantization == VectorQuantization.NONE
+                    ? dimensions * Float.BYTES
+                    : VectorQuantizer.codeSize(dimensions, quantization);
+            buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, rowBytes)).order(ByteOrder.LITTLE_ENDIAN);
+        } else if (embedding.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + embedding.length);
+        }
+        if (count == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Vector file is full.");
+        }
+
+        if (buffer.remaining() < rowBytes) {
+            flush();
+        }
+        if (quantization == VectorQuantization.NONE) {
+            for (float value : embedding) {
+                buffer.putFloat(value);
+            }
+        } else {
+            buffer.put(VectorQuantizer.encode(embedding, quantization, ByteOrder.LITTLE_ENDIAN));
+        }
+
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[count++] = id;
+    }
+
+    /**
+     * Writes the id column and header and moves the file to its destination.
+     */
+    public synchronized void finish() throws IOException {
+        if (buffer != null) {
+            flush();
+        }
+        long idsOffset = channel.position();
+        ByteBuffer idColumn = ByteBuffer.allocate(count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        idColumn.asIntBuffer().put(ids, 0, count);
+        writeFully(idColumn);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(quantizationCode(quantization))
+                .putInt(Math.max(dimensions, 0))
+                .putInt(rowBytes)
+                .putInt(0)
+                .putLong(count)
+                .putLong(HEADER_SIZE)
+                .putLong(idsOffset);
+        header.clear();
+        channel.position(0);
+        writeFully(header);
+        channel.force(true);
+        channel.close();
+
+        setPermissions();
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    /**
+     * Gives the temporary file the permissions of the file it replaces, or {@link #DEFAULT_PERMISSIONS},
+     * instead of the owner-only ones it was created with, so that other readers of the export
+     * directory can open it. File systems without POSIX permissions are left as they are.
+     */
+    private void setPermissions() throws IOException {
+        if (!Files.getFileStore(tempPath).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return;
+        }
+        Set<PosixFilePermission> permissions = Files.exists(path)
+                ? Files.getPosixFilePermissions(path) : DEFAULT_PERMISSIONS;
+        Files.setPosixFilePermissions(tempPath, permissions);
+    }
+
+    /**
+     * Returns the code of the quantization in the file header, which stays fixed when the enum changes.
+     */
+    static int quantizationCode(VectorQuantization quantization) {
+        switch (quantization) {
+            case NONE:
+                return 0;
+            case HALF:
+                return 1;
+            case INT8:
+                return 2;
+            case BINARY:
+                return 3;
+            default:
+                throw new IllegalArgumentException("No file code for quantization: " + quantization);
+        }
+    }
+
+    /**
+     * Returns the quantization of a header code written by {@link #quantizationCode}.
+     */
+    static VectorQuantization quantizationOf(int code) throws IOException {
+        switch (code) {
+            case 0:
+                return VectorQuantization.NONE;
+            case 1:
+                return VectorQuantization.HALF;
+            case 2:
+                return VectorQuantization.INT8;
+            case 3:
+                return VectorQuantization.BINARY;
+            default:
+                throw new IOException("Unknown quantization code in vector file: " + code);
+        }
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Releases the file; without a prior {@link #finish()} the partial file is deleted.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!finished) {
+            channel.close();
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.ai.voice.assistant.aivabor_pluggin.vector;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes embeddings into compact quantized codes and scores codes against a query.
+ * <p>
+ * Code layouts: {@code HALF} is one IEEE 754 half-precision float per dimension, {@code INT8}
+ * is a float scale followed by one signed byte per dimension, and {@code BINARY} is one sign bit
+ * per dimension, most significant bit first. The half floats and the scale are big-endian in codes
+ * stored in the database and little-endian in vector files; {@code BINARY} codes have no byte order.
+ */
+public final class VectorQuantizer {
+
+    private VectorQuantizer() {
+    }
+
+    /**
+     * Returns the size in bytes of the code of a vector with the given number of dimensions.
+     */
+    public static int codeSize(int dimensions, VectorQuantization quantization) {
+        switch (quantization) {
+            case HALF:
+                return dimensions * 2;
+            case INT8:
+                return Float.BYTES + dimensions;
+            case BINARY:
+                return (dimensions + 7) / 8;
+            default:
+                throw new IllegalArgumentException("No code for quantization: " + quantization);
+        }
+    }
+
+    /**
+     * Encodes the vector into its big-endian quantized code, as stored in the database.
+     */
+    public static byte[] encode(float[] vector, VectorQuantization quantization) {
+        return encode(vector, quantization, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Encodes the vector into its quantized code in the given byte order.
+     */
+    public static byte[] encode(float[] vector, VectorQuantization quantization, ByteOrder order) {
+        ByteBuffer code = ByteBuffer.allocate(codeSize(vector.length, quantization)).order(order);
+        switch (quantization) {
+            case HALF:
+                for (float value : vector) {
+                    code.putShort(floatToHalf(value));
+                }
+                break;
+            case INT8:
+                float maxAbs = 0;
+                for (float value : vector) {
+                    maxAbs = Math.max(maxAbs, Math.abs(value));
+                }
+                float scale = maxAbs / 127f;
+                code.putFloat(scale);
+                for (float value : vector) {
+                    code.put(scale == 0 ? 0 : (byte) Math.round(value / scale));
+                }
+                break;
+            case BINARY:
+                byte[] bits = code.array();
+                for (int i = 0; i < vector.length; i++) {
+                    if (vector[i] > 0) {
+                        bits[i >> 3] |= (byte) (0x80 >>> (i & 7));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("No code for quantization: " + quantization);
+        }
+        return code.array();
+    }
+
+    /**
+     * Decodes a big-endian {@code HALF} or {@code INT8} code back into an approximate vector.
+     */
+    public static float[] decode(byte[] code, VectorQuantization quantization) {
+        return decode(code, quantization, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Decodes a {@code HALF} or {@code INT8} code of the given byte order back into an approximate vector.
+     */
+    public static float[] decode(byte[] code, VectorQuantization quantization, ByteOrder order) {
+        ByteBuffer buffer = ByteBuffer.wrap(code).order(order);
+        float[] vector;
+        switch (quantization) {
+            case HALF:
+                vector = new float[code.length / 2];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = halfToFloat(buffer.getShort());
+                }
+                return vector;
+            case INT8:
+                float scale = buffer.getFloat();
+                vector = new float[code.length - Float.BYTES];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = buffer.get() * scale;
+                }
+                return vector;
+            default:
+                throw new IllegalArgumentException("Cannot decode quantization: " + quantization);
+        }
+    }
+
+    /**
+     * Approximates the distance between the query and a code: L2 against the decoded vector for
+     * {@code HALF} and {@code INT8}, Hamming distance to the query's own code for {@code BINARY}.
+     */
+    public static double approximateDistance(float[] query, byte[] queryCode, byte[] code,
+                                             VectorQuantization quantization) {
+        if (quantization == VectorQuantization.BINARY) {
+            int distance = 0;
+            for (int i = 0; i < code.length; i++) {
+                distance += Integer.bitCount((queryCode[i] ^ code[i]) & 0xff);
+            }
+            return distance;
+        }
+        return l2Distance(query, decode(code, quantization));
+    }
+
+    /**
+     * Euclidean distance between two vectors of the same length.
+     */
+    public static double l2Distance(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            double diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * Converts a float to IEEE 754 half precision, rounding to nearest even.
+     */
+    static short floatToHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int floatExponent = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+
+        if (floatExponent == 0xff) {
+            // Infinity stays infinity, NaN stays NaN
+            return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+        }
+        int exponent = floatExponent - 127 + 15;
+        if (exponent >= 0x1f) {
+            return (short) (sign | 0x7c00);
+        }
+        if (exponent <= 0) {
+            if (exponent < -10) {
+                return (short) sign;
+            }
+            // Subnormal half: shift the mantissa, including its implicit leading bit
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int midpoint = 1 << (shift - 1);
+            if (remainder > midpoint || (remainder == midpoint && (half & 1) != 0)) {
+                half++;
+            }
+            return (short) (sign | half);
+        }
+        int half = (exponent << 10) | (mantissa >> 13);
+        int remainder = mantissa & 0x1fff;
+        if (remainder > 0x1000 || (remainder == 0x1000 && (half & 1) != 0)) {
+            // A carry into the exponent is the correctly rounded result, up to infinity
+            half++;
+        }
+        return (short) (sign | half);
+    }
+
+    /**
+     * Converts an IEEE 754 half-precision value to a float.
+     */
+    static float halfToFloat(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        if (exponent == 0) {
+            float value = mantissa * 0x1p-24f;
+            return sign != 0 ? -value : value;
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+}
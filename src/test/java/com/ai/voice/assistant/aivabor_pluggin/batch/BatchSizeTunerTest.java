@@ -0,0 +1,106 @@
+package com.ai.voice.assistant.aivabor_pluggin.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchSizeTunerTest {
+
+    private static final long FAST_WRITE = 1_000_000;
+    private static final long SLOW_WRITE = 5_000_000_000L;
+
+    private long now;
+    private double headroom = 0.5;
+
+    @Test
+    void climbsTowardThePeakAndSettlesAroundIt() {
+        BatchSizeTuner tuner = tuner(true, 500);
+        // Throughput rises linearly up to 2000 rows per batch and falls beyond
+        IntToDoubleFunction rowsPerSecond = size -> size <= 2000 ? 50.0 * size : 50.0 * 2000 * 2000 / size;
+
+        int largest = 0;
+        for (int batch = 0; batch < 300; batch++) {
+            runBatch(tuner, rowsPerSecond, FAST_WRITE);
+            largest = Math.max(largest, tuner.getBatchSize());
+        }
+
+        assertTrue(largest > 2000, "never probed past the peak: " + largest);
+        assertTrue(tuner.getBatchSize() >= 1400 && tuner.getBatchSize() <= 2900,
+                "did not settle around the peak: " + tuner.getBatchSize());
+        assertEquals(tuner.getBatchSize(), tuner.getFetchSize());
+    }
+
+    @Test
+    void latencySpikeBacksOffAtOnce() {
+        BatchSizeTuner tuner = tuner(true, 2000);
+
+        runBatch(tuner, size -> 50.0 * size, SLOW_WRITE);
+
+        assertEquals(1000, tuner.getBatchSize());
+    }
+
+    @Test
+    void capRecoversAfterASingleSpike() {
+        BatchSizeTuner tuner = tuner(true, 2000);
+        IntToDoubleFunction rowsPerSecond = size -> 50.0 * size;
+
+        runBatch(tuner, rowsPerSecond, SLOW_WRITE);
+        int backedOff = tuner.getBatchSize();
+        for (int batch = 0; batch < 100; batch++) {
+            runBatch(tuner, rowsPerSecond, FAST_WRITE);
+        }
+
+        assertTrue(tuner.getBatchSize() > 2000, "still capped at " + tuner.getBatchSize() + " after backing off to " + backedOff);
+    }
+
+    @Test
+    void repeatedSpikesKeepTheSizeDown() {
+        BatchSizeTuner tuner = tuner(true, 2000);
+
+        for (int batch = 0; batch < 20; batch++) {
+            runBatch(tuner, size -> 50.0 * size, SLOW_WRITE);
+        }
+
+        assertEquals(50, tuner.getBatchSize());
+    }
+
+    @Test
+    void lowHeapHeadroomBacksOff() {
+        BatchSizeTuner tuner = tuner(true, 2000);
+        headroom = 0.05;
+
+        runBatch(tuner, size -> 50.0 * size, FAST_WRITE);
+
+        assertEquals(1000, tuner.getBatchSize());
+    }
+
+    @Test
+    void fixedSizeIgnoresThroughputAndLatency() {
+        BatchSizeTuner tuner = tuner(false, 500);
+
+        for (int batch = 0; batch < 30; batch++) {
+            runBatch(tuner, size -> 50.0 * size, batch % 2 == 0 ? SLOW_WRITE : FAST_WRITE);
+        }
+
+        assertEquals(500, tuner.getBatchSize());
+    }
+
+    @Test
+    void rejectsInconsistentBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchSizeTuner(true, 10, 50, 5000, 2000));
+    }
+
+    private BatchSizeTuner tuner(boolean adaptive, int initialSize) {
+        return new BatchSizeTuner(adaptive, initialSize, 50, 5000, 2000, () -> now, () -> headroom);
+    }
+
+    private void runBatch(BatchSizeTuner tuner, IntToDoubleFunction rowsPerSecond, long writeNanos) {
+        int rows = tuner.getBatchSize();
+        now += (long) (rows / rowsPerSecond.applyAsDouble(rows) * 1e9);
+        tuner.recordBatch(rows, writeNanos);
+    }
+}
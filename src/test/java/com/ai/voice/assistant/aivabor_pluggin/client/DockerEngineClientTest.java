@@ -0,0 +1,241 @@
+package com.ai.voice.assistant.aivabor_pluggin.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DockerEngineClientTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FakeDaemon daemon;
+    private DockerEngineClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        daemon = new FakeDaemon(tempDir.resolve("docker.sock"));
+        client = new DockerEngineClient(daemon.socketPath.toString(), Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        daemon.close();
+    }
+
+    @Test
+    void execDemultiplexesStdoutAndStderr() throws IOException {
+        daemon.route("POST /v1.41/containers/pg/exec", out -> {
+            writeChunked(out, "{\"Id\":", "\"e1\"}");
+            return true;
+        });
+        daemon.route("POST /v1.41/exec/e1/start", out -> {
+            out.write(ascii("HTTP/1.1 101 UPGRADED\r\nContent-Type: application/vnd.docker.raw-stream\r\n"
+                    + "Connection: Upgrade\r\nUpgrade: tcp\r\n\r\n"));
+            // Lines interleave across streams and frame headers arrive split over writes
+            writeSplit(out, frame(1, "hel"));
+            writeSplit(out, frame(2, "warn"));
+            writeSplit(out, frame(1, "lo\nwor"));
+            writeSplit(out, frame(2, "ing\n"));
+            writeSplit(out, frame(1, "ld"));
+            return false;
+        });
+        daemon.route("GET /v1.41/exec/e1/json", out -> {
+            writeFixed(out, "{\"ExitCode\":3}");
+            return true;
+        });
+
+        List<String> stdout = new CopyOnWriteArrayList<>();
+        List<String> stderr = new CopyOnWriteArrayList<>();
+        int exitCode = client.exec("pg", List.of("sh", "-c", "true"), null, stdout::add, stderr::add);
+
+        assertEquals(3, exitCode);
+        assertEquals(List.of("hello", "world"), stdout);
+        assertEquals(List.of("warning"), stderr);
+    }
+
+    @Test
+    void execFailsOnTruncatedFrame() {
+        daemon.route("POST /v1.41/containers/pg/exec", out -> {
+            writeFixed(out, "{\"Id\":\"e2\"}");
+            return true;
+        });
+        daemon.route("POST /v1.41/exec/e2/start", out -> {
+            out.write(ascii("HTTP/1.1 200 OK\r\nContent-Type: application/vnd.docker.raw-stream\r\n\r\n"));
+            byte[] frame = frame(1, "partial line");
+            out.write(frame, 0, frame.length - 3);
+            return false;
+        });
+
+        assertThrows(IOException.class,
+                () -> client.exec("pg", List.of("true"), null, line -> { }, line -> { }));
+    }
+
+    @Test
+    void listContainerNamesReadsChunkedBodiesOnOneConnection() throws IOException {
+        daemon.route("GET /v1.41/containers/json", out -> {
+            writeChunked(out, "[{\"Names\":[\"/pg", "vector\"]},", "{\"Names\":[\"/pg2\"]}]");
+            return true;
+        });
+
+        assertEquals(List.of("pgvector", "pg2"), client.listContainerNames("pg"));
+        assertEquals(List.of("pgvector", "pg2"), client.listContainerNames("pg"));
+        assertEquals(1, daemon.connections.get());
+    }
+
+    private static byte[] frame(int stream, String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(8 + bytes.length)
+                .put((byte) stream).put(new byte[3]).putInt(bytes.length).put(bytes)
+                .array();
+    }
+
+    private static void writeSplit(OutputStream out, byte[] frame) throws IOException {
+        out.write(frame, 0, 3);
+        out.flush();
+        out.write(frame, 3, frame.length - 3);
+        out.flush();
+    }
+
+    private static void writeChunked(OutputStream out, String... chunks) throws IOException {
+        out.write(ascii("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nTransfer-Encoding: chunked\r\n\r\n"));
+        for (String chunk : chunks) {
+            byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            out.write(ascii(Integer.toHexString(bytes.length) + "\r\n"));
+            out.write(bytes);
+            out.write(ascii("\r\n"));
+            out.flush();
+        }
+        out.write(ascii("0\r\n\r\n"));
+    }
+
+    private static void writeFixed(OutputStream out, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        out.write(ascii("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: "
+                + bytes.length + "\r\n\r\n"));
+        out.write(bytes);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes one response; returns whether the connection stays open for further requests.
+     */
+    private interface Route {
+        boolean respond(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Docker daemon stand-in on a Unix socket, answering requests by method and path.
+     */
+    private static final class FakeDaemon implements AutoCloseable {
+
+        private final Path socketPath;
+        private final ServerSocketChannel server;
+        private final Map<String, Route> routes = new ConcurrentHashMap<>();
+        private final AtomicInteger connections = new AtomicInteger();
+
+        FakeDaemon(Path socketPath) throws IOException {
+            this.socketPath = socketPath;
+            this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            Thread acceptor = new Thread(this::accept, "fake-docker-daemon");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        void route(String request, Route route) {
+            routes.put(request, route);
+        }
+
+        private void accept() {
+            while (server.isOpen()) {
+                try {
+                    SocketChannel channel = server.accept();
+                    connections.incrementAndGet();
+                    Thread handler = new Thread(() -> serve(channel), "fake-docker-connection");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(SocketChannel channel) {
+            try (channel) {
+                InputStream in = Channels.newInputStream(channel);
+                OutputStream out = Channels.newOutputStream(channel);
+                boolean open = true;
+                while (open) {
+                    String requestLine = readLine(in);
+                    if (requestLine == null) {
+                        return;
+                    }
+                    int contentLength = 0;
+                    String header;
+                    while ((header = readLine(in)) != null && !header.isEmpty()) {
+                        if (header.toLowerCase().startsWith("content-length:")) {
+                            contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+                        }
+                    }
+                    in.readNBytes(contentLength);
+
+                    String[] parts = requestLine.split(" ");
+                    String path = parts[1].split("\\?")[0];
+                    Route route = routes.get(parts[0] + " " + path);
+                    if (route == null) {
+                        out.write(ascii("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n"));
+                    } else {
+                        open = route.respond(out);
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // The client went away
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return b == -1 && line.size() == 0 ? null : line.toString(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ai.voice.assistant.aivabor_pluggin.embedding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashingEmbeddingProviderTest {
+
+    private static final int DIMENSIONS = 256;
+
+    private final HashingEmbeddingProvider provider = new HashingEmbeddingProvider(DIMENSIONS, true, 4);
+    // Never splits a text, whatever its length
+    private final HashingEmbeddingProvider sequential =
+            new HashingEmbeddingProvider(DIMENSIONS, true, 1, Integer.MAX_VALUE);
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        sequential.shutdown();
+    }
+
+    @Test
+    void embeddingIsDeterministic() {
+        String text = "Invoice 1042 overdue: please pay the remaining balance";
+
+        float[] first = provider.embed(text);
+
+        assertArrayEquals(first, provider.embed(text));
+        assertArrayEquals(first, new HashingEmbeddingProvider(DIMENSIONS, true, 2).embed(text));
+    }
+
+    @Test
+    void embeddingIsNormalized() {
+        float[] embedding = provider.embed("The quick brown fox jumps over the lazy dog");
+
+        assertEquals(DIMENSIONS, embedding.length);
+        assertEquals(1.0, norm(embedding), 1e-5);
+    }
+
+    @Test
+    void textWithoutWordsEmbedsToZero() {
+        assertArrayEquals(new float[DIMENSIONS], provider.embed(" ,.;- "));
+    }
+
+    @Test
+    void caseAndPunctuationDoNotMatter() {
+        assertArrayEquals(provider.embed("hello world"), provider.embed("Hello, WORLD!"));
+    }
+
+    @Test
+    void parallelPathMatchesSequentialPath() {
+        String text = randomText(10_000);
+
+        float[] parallel = provider.embed(text);
+        float[] reference = sequential.embed(text);
+
+        assertEquals(1.0, norm(parallel), 1e-5);
+        // Only the float summation order differs between the two paths
+        assertArrayEquals(reference, parallel, 1e-4f);
+    }
+
+    @Test
+    void similarTextsAreCloserThanUnrelatedOnes() {
+        float[] base = provider.embed("monthly sales report for the northern region");
+        float[] similar = provider.embed("monthly sales report for the southern region");
+        float[] unrelated = provider.embed("kernel panic after upgrading the graphics driver");
+
+        assertTrue(dot(base, similar) > dot(base, unrelated));
+    }
+
+    @Test
+    void rejectsDimensionsOutsideTheVectorTypeLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new HashingEmbeddingProvider(0, true, 1));
+        assertThrows(IllegalArgumentException.class, () -> new HashingEmbeddingProvider(16001, true, 1));
+    }
+
+    private static String randomText(int words) {
+        Random random = new Random(11);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            // A small vocabulary, so bigrams and trigrams repeat across the split points
+            text.append("word").append(random.nextInt(500)).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static double norm(float[] vector) {
+        return Math.sqrt(dot(vector, vector));
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (double) a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.batch.BatchSizeTunerFactory;
+import com.ai.voice.assistant.aivabor_pluggin.batch.RowErrorPolicy;
+import com.ai.voice.assistant.aivabor_pluggin.embedding.EmbeddingProvider;
+import com.ai.voice.assistant.aivabor_pluggin.model.BulkJobStatus;
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.ai.voice.assistant.aivabor_pluggin.model.EnvironmentType;
+import com.ai.voice.assistant.aivabor_pluggin.model.JobPlan;
+import com.ai.voice.assistant.aivabor_pluggin.model.TableJobStatus;
+import com.ai.voice.assistant.aivabor_pluggin.model.TableProgress;
+import com.ai.voice.assistant.aivabor_pluggin.model.WriteMode;
+import com.ai.voice.assistant.aivabor_pluggin.request.BulkProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import com.ai.voice.assistant.aivabor_pluggin.request.TableProcessRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkProcessingServiceTest {
+
+    private final DataSourceService dataSourceService = mock(DataSourceService.class);
+    private final JobPlannerService jobPlannerService = mock(JobPlannerService.class);
+    private final DataProcessingService dataProcessingService = new DataProcessingService(
+            new BatchSizeTunerFactory(true, 500, 50, 5000, 2000), new RowErrorPolicy(32000, 1000, 3, 200),
+            mock(DeadLetterService.class), mock(EmbeddingProvider.class));
+    private final BulkProcessingService bulkProcessingService = new BulkProcessingService(dataSourceService,
+            mock(PgVectorService.class), dataProcessingService,
+            new DataProcessingFacadeService(dataSourceService, mock(PgVectorService.class), dataProcessingService,
+                    mock(VectorExportService.class), jobPlannerService),
+            jobPlannerService, 2);
+
+    @AfterEach
+    void tearDown() {
+        bulkProcessingService.shutdown();
+    }
+
+    @Test
+    void multiTableRebuildRunsOnNonPostgresTargets() throws Exception {
+        for (DatabaseDialect dialect : List.of(DatabaseDialect.MYSQL, DatabaseDialect.SQLSERVER, DatabaseDialect.ORACLE)) {
+            assertAllTablesComplete(dialect, WriteMode.REBUILD);
+        }
+    }
+
+    @Test
+    void multiTableIncrementalLoadRunsOnNonPostgresTargets() throws Exception {
+        for (DatabaseDialect dialect : List.of(DatabaseDialect.MYSQL, DatabaseDialect.SQLSERVER, DatabaseDialect.ORACLE)) {
+            assertAllTablesComplete(dialect, WriteMode.INCREMENTAL);
+        }
+    }
+
+    /**
+     * Runs a two-table bulk job against an empty database of the dialect: no tables, no source rows.
+     */
+    private void assertAllTablesComplete(DatabaseDialect dialect, WriteMode writeMode) throws Exception {
+        DataSource dataSource = mock(DataSource.class, RETURNS_DEEP_STUBS);
+        when(dataSourceService.openJobDataSources(any()))
+                .thenReturn(new JobDataSources(dataSource, dialect, dataSource, dialect, () -> { }));
+        doAnswer(invocation -> JobPlan.builder()
+                .tableName(invocation.<ProcessRequest>getArgument(0).getTableName())
+                .partitions(1)
+                .writeMode(writeMode)
+                .build())
+                .when(jobPlannerService).plan(any(), any());
+
+        BulkJobStatus status = bulkProcessingService.start(BulkProcessRequest.builder()
+                .url("jdbc:test")
+                .idName("id")
+                .writeMode(writeMode)
+                // Mockito's deep stubs are created on first use and are not safe to race on
+                .maxConcurrentTables(1)
+                .tables(List.of(
+                        TableProcessRequest.builder().tableName("orders").fields(List.of("note")).build(),
+                        TableProcessRequest.builder().tableName("customers").fields(List.of("name")).build()))
+                .build(), EnvironmentType.DOCKER);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!status.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(status.isFinished(), dialect + " bulk job did not finish");
+        for (TableProgress table : status.getTables()) {
+            assertNull(table.getError(), dialect + " " + writeMode + " " + table.getTableName());
+            assertEquals(TableJobStatus.COMPLETED, table.getStatus());
+        }
+    }
+}
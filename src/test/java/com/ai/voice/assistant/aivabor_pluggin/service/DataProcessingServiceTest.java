@@ -0,0 +1,124 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.batch.BatchSizeTunerFactory;
+import com.ai.voice.assistant.aivabor_pluggin.batch.RowErrorPolicy;
+import com.ai.voice.assistant.aivabor_pluggin.embedding.EmbeddingProvider;
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DataProcessingServiceTest {
+
+    private final EmbeddingProvider embeddingProvider = mock(EmbeddingProvider.class);
+    private final DeadLetterService deadLetterService = mock(DeadLetterService.class);
+    private final DataProcessingService dataProcessingService = new DataProcessingService(
+            new BatchSizeTunerFactory(true, 500, 50, 5000, 2000), new RowErrorPolicy(32000, 1000, 0, 1),
+            deadLetterService, embeddingProvider);
+
+    private final ProcessRequest request = ProcessRequest.builder()
+            .tableName("orders")
+            .idName("id")
+            .fields(List.of("note"))
+            .watermarkColumn("updated_at")
+            .build();
+
+    @Test
+    void syncAdvancesPastRowsThatFailForGood() throws Exception {
+        when(embeddingProvider.embed(anyString())).thenReturn(new float[]{1, 0, 0});
+
+        // The second row's text cannot be embedded whatever the attempt
+        Object watermark = sync("first", "bad\u0000text", "third");
+
+        assertEquals(3L, watermark);
+        verify(deadLetterService, times(1)).write(any(), eq(DatabaseDialect.MYSQL), eq("orders"), anyList());
+    }
+
+    @Test
+    void syncHoldsTheWatermarkOnTransientFailures() throws Exception {
+        when(embeddingProvider.embed(anyString())).thenReturn(new float[]{1, 0, 0});
+        when(embeddingProvider.embed("second")).thenThrow(new IOException("embedding service timed out"));
+
+        Object watermark = sync("first", "second", "third");
+
+        // The batch started at the first row's watermark, from which the next poll retries
+        assertEquals(1L, watermark);
+    }
+
+    @Test
+    void rebuildGivesTheStagingIndexTheLiveNameAfterTheSwap() throws Exception {
+        DataSource dataSource = mock(DataSource.class, RETURNS_DEEP_STUBS);
+        Statement stmt = dataSource.getConnection().createStatement();
+
+        dataProcessingService.rebuildVectorTable(request,
+                new JobDataSources(dataSource, DatabaseDialect.POSTGRESQL, dataSource, DatabaseDialect.POSTGRESQL, () -> { }),
+                "job-1", null, rows -> { });
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(stmt, atLeastOnce()).execute(sql.capture());
+        List<String> statements = sql.getAllValues();
+        int createIndex = statements.indexOf(statements.stream()
+                .filter(statement -> statement.startsWith("CREATE INDEX \"orders_vector_staging_embedding_idx\""))
+                .findFirst().orElseThrow());
+        int swap = statements.indexOf("ALTER TABLE \"orders_vector_staging\" RENAME TO \"orders_vector\"");
+        int renameIndex = statements.indexOf("ALTER INDEX IF EXISTS \"orders_vector_staging_embedding_idx\""
+                + " RENAME TO \"orders_vector_embedding_idx\"");
+        assertTrue(createIndex < swap && swap < renameIndex, statements.toString());
+    }
+
+    /**
+     * Syncs changed rows with the given texts and watermarks 1, 2, 3, ... from a watermark of 0.
+     */
+    private Object sync(String... notes) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        Boolean[] more = new Boolean[notes.length];
+        Long[] watermarks = new Long[notes.length];
+        Integer[] ids = new Integer[notes.length];
+        for (int i = 0; i < notes.length; i++) {
+            more[i] = i + 1 < notes.length;
+            watermarks[i] = i + 1L;
+            ids[i] = i + 1;
+        }
+        when(rs.next()).thenReturn(true, more);
+        when(rs.getObject("updated_at")).thenReturn(watermarks[0], (Object[]) Arrays.copyOfRange(watermarks, 1, notes.length));
+        when(rs.getInt("id")).thenReturn(ids[0], Arrays.copyOfRange(ids, 1, notes.length));
+        when(rs.getString("note")).thenReturn(notes[0], Arrays.copyOfRange(notes, 1, notes.length));
+
+        PreparedStatement selectStmt = mock(PreparedStatement.class);
+        when(selectStmt.executeQuery()).thenReturn(rs);
+        Connection readConn = mock(Connection.class);
+        when(readConn.prepareStatement(anyString())).thenReturn(selectStmt);
+        DataSource source = mock(DataSource.class);
+        when(source.getConnection()).thenReturn(readConn);
+
+        Connection writeConn = mock(Connection.class);
+        when(writeConn.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(writeConn);
+
+        return dataProcessingService.syncChangedRows(request,
+                new JobDataSources(source, DatabaseDialect.MYSQL, target, DatabaseDialect.MYSQL, () -> { }), 0L);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.batch.BatchSizeTunerFactory;
+import com.ai.voice.assistant.aivabor_pluggin.batch.RowErrorPolicy;
+import com.ai.voice.assistant.aivabor_pluggin.embedding.EmbeddingProvider;
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.ai.voice.assistant.aivabor_pluggin.model.JobPlan;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JobPlannerServiceTest {
+
+    private final BatchSizeTunerFactory batchSizeTunerFactory = new BatchSizeTunerFactory(true, 500, 50, 5000, 2000);
+    private final EmbeddingProvider embeddingProvider = mock(EmbeddingProvider.class);
+    private final JobPlannerService jobPlannerService =
+            new JobPlannerService(batchSizeTunerFactory, embeddingProvider, true, 2000);
+
+    @Test
+    void partitionsOnNonPostgresTargetsAreReportedAsFailingTheLoad() throws Exception {
+        when(embeddingProvider.getDimensions()).thenReturn(384);
+        DataSource dataSource = mock(DataSource.class, RETURNS_DEEP_STUBS);
+        // Only the source table exists
+        ResultSet table = mock(ResultSet.class);
+        when(table.next()).thenReturn(true);
+        when(table.getString("TABLE_NAME")).thenReturn("orders");
+        when(dataSource.getConnection().getMetaData().getTables(any(), any(), eq("orders"), any())).thenReturn(table);
+        JobDataSources dataSources =
+                new JobDataSources(dataSource, DatabaseDialect.MYSQL, dataSource, DatabaseDialect.MYSQL, () -> { });
+        ProcessRequest request = ProcessRequest.builder()
+                .tableName("orders")
+                .idName("id")
+                .fields(List.of("note"))
+                .partitions(4)
+                .build();
+
+        JobPlan plan = jobPlannerService.plan(request, dataSources);
+
+        assertEquals(1, plan.getPartitions());
+        assertTrue(plan.getWarnings().stream().anyMatch(warning -> warning.startsWith("4 partitions were requested")
+                && warning.endsWith("the load will fail.")), plan.getWarnings().toString());
+
+        // The warning holds: the load rejects the request
+        jobPlannerService.applyPlan(plan, request);
+        DataProcessingService dataProcessingService = new DataProcessingService(batchSizeTunerFactory,
+                new RowErrorPolicy(32000, 1000, 3, 200), mock(DeadLetterService.class), embeddingProvider);
+        SQLException e = assertThrows(SQLException.class,
+                () -> dataProcessingService.createVectorTable(request, dataSources));
+        assertEquals("Partitioned vector tables are only supported on PostgreSQL.", e.getMessage());
+    }
+}
@@ -0,0 +1,59 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import com.ai.voice.assistant.aivabor_pluggin.model.EnvironmentType;
+import com.ai.voice.assistant.aivabor_pluggin.request.ProcessRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PgVectorServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final PgVectorService pgVectorService = new PgVectorService(mock(ObjectProvider.class),
+            mock(ObjectProvider.class), mock(ObjectProvider.class));
+
+    private final ProcessRequest request = ProcessRequest.builder()
+            .url("jdbc:postgresql://db/app")
+            .tableName("orders")
+            .idName("id")
+            .fields(List.of("note"))
+            .build();
+
+    @Test
+    void missingVectorTypeEvictsTheCachedInstall() throws Exception {
+        DataSource dataSource = mock(DataSource.class, RETURNS_DEEP_STUBS);
+        ResultSet extensions = mock(ResultSet.class);
+        when(extensions.next()).thenReturn(true);
+        when(extensions.getInt(1)).thenReturn(1);
+        when(dataSource.getConnection().createStatement().executeQuery(anyString())).thenReturn(extensions);
+        JobDataSources dataSources = new JobDataSources(dataSource, DatabaseDialect.POSTGRESQL, dataSource,
+                DatabaseDialect.POSTGRESQL, () -> { });
+
+        pgVectorService.installPgVectorIfNeeded(request, dataSources, "job-1", EnvironmentType.DOCKER);
+        // Cached: no second look at pg_extension
+        pgVectorService.installPgVectorIfNeeded(request, dataSources, "job-2", EnvironmentType.DOCKER);
+        verify(extensions, times(1)).next();
+
+        assertFalse(pgVectorService.evictIfExtensionMissing(request,
+                new SQLException("relation \"orders\" does not exist", "42P01")));
+        assertTrue(pgVectorService.evictIfExtensionMissing(request,
+                new Exception("load failed", new SQLException("type \"vector\" does not exist", "42704"))));
+
+        pgVectorService.installPgVectorIfNeeded(request, dataSources, "job-3", EnvironmentType.DOCKER);
+        verify(extensions, times(2)).next();
+    }
+}
@@ -0,0 +1,29 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.DatabaseDialect;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlIdentifiersTest {
+
+    @Test
+    void quotesIdentifiersForEachDialect() {
+        assertEquals("`orders`", SqlIdentifiers.quote("orders", DatabaseDialect.MYSQL));
+        assertEquals("\"orders\"", SqlIdentifiers.quote("orders", DatabaseDialect.POSTGRESQL));
+        assertEquals("\"orders\"", SqlIdentifiers.quote("orders", DatabaseDialect.ORACLE));
+        assertEquals("[orders]", SqlIdentifiers.quote("orders", DatabaseDialect.SQLSERVER));
+    }
+
+    @Test
+    void doublesClosingQuotes() {
+        assertEquals("`a``b`", SqlIdentifiers.quote("a`b", DatabaseDialect.MYSQL));
+        assertEquals("\"a\"\"b\"", SqlIdentifiers.quote("a\"b", DatabaseDialect.POSTGRESQL));
+        assertEquals("[a]]b]", SqlIdentifiers.quote("a]b", DatabaseDialect.SQLSERVER));
+    }
+
+    @Test
+    void namesTheForeignKeyColumnAfterTableAndId() {
+        assertEquals("fk_orders_id", SqlIdentifiers.foreignKeyColumn("orders", "id"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.ai.voice.assistant.aivabor_pluggin.service;
+
+import com.ai.voice.assistant.aivabor_pluggin.batch.BatchSizeTunerFactory;
+import com.ai.voice.assistant.aivabor_pluggin.batch.RowErrorPolicy;
+import com.ai.voice.assistant.aivabor_pluggin.embedding.EmbeddingProvider;
+import com.ai.voice.assistant.aivabor_pluggin.request.SearchRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class VectorSearchServiceTest {
+
+    private final DataSourceService dataSourceService = mock(DataSourceService.class);
+    private final VectorSearchService vectorSearchService = new VectorSearchService(dataSourceService,
+            new DataProcessingService(new BatchSizeTunerFactory(true, 500, 50, 5000, 2000),
+                    new RowErrorPolicy(32000, 1000, 3, 200), mock(DeadLetterService.class),
+                    mock(EmbeddingProvider.class)));
+
+    @AfterEach
+    void tearDown() {
+        vectorSearchService.shutdown();
+    }
+
+    @Test
+    void rejectsTopKOutsideTheSupportedRange() throws Exception {
+        for (int topK : new int[]{0, -5, 1001}) {
+            assertThrows(IllegalArgumentException.class, () -> vectorSearchService.search(request(topK, null)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> vectorSearchService.search(request(10, 0)));
+        // Rejected before any connection is opened
+        verify(dataSourceService, never()).acquireDataSources(any(), any());
+    }
+
+    private static SearchRequest request(Integer topK, Integer candidates) {
+        return SearchRequest.builder()
+                .url("jdbc:test")
+                .tableName("orders")
+                .idName("id")
+                .query("late invoices")
+                .topK(topK)
+                .candidates(candidates)
+                .build();
+    }
+}
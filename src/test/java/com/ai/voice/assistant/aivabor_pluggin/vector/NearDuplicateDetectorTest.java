@@ -0,0 +1,124 @@
+package com.ai.voice.assistant.aivabor_pluggin.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearDuplicateDetectorTest {
+
+    private static final double THRESHOLD = 0.8;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void findsTextsThatDifferOnlyInCaseAndSpacing() {
+        NearDuplicateDetector<String> detector = new NearDuplicateDetector<>(THRESHOLD);
+        detector.register(detector.signature("The quick brown fox jumps over the lazy dog"), "fox");
+
+        assertEquals("fox", detector.findNearDuplicate(detector.signature("the QUICK  brown fox\tjumps over the lazy dog ")));
+        assertNull(detector.findNearDuplicate(detector.signature("Lorem ipsum dolor sit amet, consectetur")));
+    }
+
+    @Test
+    void matchesAroundTheThreshold() {
+        int above = 0;
+        int aboveFound = 0;
+        int below = 0;
+        int belowFound = 0;
+        for (int pair = 0; pair < 300; pair++) {
+            List<String> words = randomWords(200);
+            List<String> variant = new ArrayList<>(words);
+            for (int changed = random.nextInt(40); changed > 0; changed--) {
+                variant.set(random.nextInt(variant.size()), randomWord());
+            }
+            String text = String.join(" ", words);
+            String variantText = String.join(" ", variant);
+
+            NearDuplicateDetector<String> detector = new NearDuplicateDetector<>(THRESHOLD);
+            detector.register(detector.signature(text), text);
+            boolean found = detector.findNearDuplicate(detector.signature(variantText)) != null;
+
+            double jaccard = jaccard(text, variantText);
+            if (jaccard >= THRESHOLD + 0.1) {
+                above++;
+                aboveFound += found ? 1 : 0;
+            } else if (jaccard <= THRESHOLD - 0.15) {
+                below++;
+                belowFound += found ? 1 : 0;
+            }
+        }
+
+        assertTrue(above > 20 && below > 20, "too few pairs on either side: " + above + ", " + below);
+        assertTrue(aboveFound >= above * 0.95, aboveFound + " of " + above + " pairs above the threshold found");
+        assertTrue(belowFound <= below * 0.05, belowFound + " of " + below + " pairs below the threshold found");
+    }
+
+    @Test
+    void stopsRegisteringAtTheRepresentativeCap() {
+        NearDuplicateDetector<String> detector = new NearDuplicateDetector<>(THRESHOLD);
+        int[] first = detector.signature("first representative text");
+        int[] late = detector.signature("a completely different text registered late");
+        for (int i = 0; i < NearDuplicateDetector.DEFAULT_MAX_REPRESENTATIVES; i++) {
+            detector.register(first, "first");
+        }
+
+        detector.register(late, "late");
+
+        assertEquals(NearDuplicateDetector.DEFAULT_MAX_REPRESENTATIVES, detector.getRepresentativeCount());
+        assertEquals("first", detector.findNearDuplicate(first));
+        assertNull(detector.findNearDuplicate(late));
+    }
+
+    @Test
+    void rejectsThresholdOutsideUnitInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateDetector<String>(0));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateDetector<String>(1.5));
+    }
+
+    private List<String> randomWords(int count) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            words.add(randomWord());
+        }
+        return words;
+    }
+
+    private String randomWord() {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    /**
+     * Exact Jaccard similarity of the 5-character shingles the detector estimates.
+     */
+    private static double jaccard(String a, String b) {
+        Set<String> shinglesA = shingles(a);
+        Set<String> shinglesB = shingles(b);
+        Set<String> union = new HashSet<>(shinglesA);
+        union.addAll(shinglesB);
+        shinglesA.retainAll(shinglesB);
+        return (double) shinglesA.size() / union.size();
+    }
+
+    private static Set<String> shingles(String text) {
+        String normalized = text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+        Set<String> shingles = new HashSet<>();
+        for (int i = 0; i + 5 <= normalized.length(); i++) {
+            shingles.add(normalized.substring(i, i + 5));
+        }
+        return shingles;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ai.voice.assistant.aivabor_pluggin.vector;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VectorFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void requirePosix() throws IOException {
+        assumeTrue(Files.getFileStore(tempDir).supportsFileAttributeView(PosixFileAttributeView.class));
+    }
+
+    @Test
+    void newFileIsReadableByOthers() throws IOException {
+        Path path = tempDir.resolve("orders.aivf");
+
+        write(path, new float[]{1, 2, 3});
+
+        assertEquals("rw-r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(path)));
+        try (VectorFileReader reader = new VectorFileReader(path)) {
+            assertEquals(7, reader.id(0));
+            assertArrayEquals(new float[]{1, 2, 3}, reader.vector(0));
+        }
+    }
+
+    @Test
+    void replacedFileKeepsItsPermissions() throws IOException {
+        Path path = tempDir.resolve("orders.aivf");
+        write(path, new float[]{1, 2, 3});
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-rw----"));
+
+        write(path, new float[]{4, 5, 6});
+
+        assertEquals("rw-rw----", PosixFilePermissions.toString(Files.getPosixFilePermissions(path)));
+    }
+
+    private static void write(Path path, float[] embedding) throws IOException {
+        try (VectorFileWriter writer = new VectorFileWriter(path, VectorQuantization.NONE)) {
+            writer.append(7, embedding);
+            writer.finish();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.ai.voice.assistant.aivabor_pluggin.vector;
+
+import com.ai.voice.assistant.aivabor_pluggin.model.VectorQuantization;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorQuantizerTest {
+
+    private static final int DIMENSIONS = 384;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void halfRoundTripKeepsHalfPrecision() {
+        float[] vector = randomVector();
+        byte[] code = VectorQuantizer.encode(vector, VectorQuantization.HALF);
+
+        assertEquals(DIMENSIONS * 2, code.length);
+        float[] decoded = VectorQuantizer.decode(code, VectorQuantization.HALF);
+        for (int i = 0; i < DIMENSIONS; i++) {
+            // 10 mantissa bits: relative error at most 2^-11
+            assertEquals(vector[i], decoded[i], Math.abs(vector[i]) * 0x1p-11f + 0x1p-24f);
+        }
+    }
+
+    @Test
+    void halfConversionHandlesSpecialValues() {
+        assertEquals(0f, roundTrip(0f));
+        assertEquals(Float.floatToRawIntBits(-0f), Float.floatToRawIntBits(roundTrip(-0f)));
+        assertEquals(65504f, roundTrip(65504f));
+        assertEquals(Float.POSITIVE_INFINITY, roundTrip(1e6f));
+        assertEquals(Float.NEGATIVE_INFINITY, roundTrip(Float.NEGATIVE_INFINITY));
+        assertTrue(Float.isNaN(roundTrip(Float.NaN)));
+        // Smallest subnormal half, and a value below half of it that rounds to zero
+        assertEquals(0x1p-24f, roundTrip(0x1p-24f));
+        assertEquals(0f, roundTrip(0x1p-26f));
+        // Ties round to even: 1 + 2^-11 lies halfway between 1 and 1 + 2^-10
+        assertEquals(1f, roundTrip(1f + 0x1p-11f));
+    }
+
+    @Test
+    void int8RoundTripIsWithinHalfAScaleStep() {
+        float[] vector = randomVector();
+        byte[] code = VectorQuantizer.encode(vector, VectorQuantization.INT8);
+
+        assertEquals(Float.BYTES + DIMENSIONS, code.length);
+        float maxAbs = 0;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        float step = maxAbs / 127f;
+        float[] decoded = VectorQuantizer.decode(code, VectorQuantization.INT8);
+        for (int i = 0; i < DIMENSIONS; i++) {
+            assertEquals(vector[i], decoded[i], step / 2 + 1e-6f);
+        }
+    }
+
+    @Test
+    void int8CodeOfZeroVectorDecodesToZero() {
+        float[] decoded = VectorQuantizer.decode(
+                VectorQuantizer.encode(new float[8], VectorQuantization.INT8), VectorQuantization.INT8);
+
+        assertArrayEquals(new float[8], decoded);
+    }
+
+    @Test
+    void binaryCodePacksSignBitsMostSignificantFirst() {
+        float[] vector = {1, -1, 0, 2, -3, 4, 5, -6, 7};
+
+        byte[] code = VectorQuantizer.encode(vector, VectorQuantization.BINARY);
+
+        assertArrayEquals(new byte[]{(byte) 0x96, (byte) 0x80}, code);
+        assertThrows(IllegalArgumentException.class, () -> VectorQuantizer.decode(code, VectorQuantization.BINARY));
+    }
+
+    @Test
+    void codesRoundTripInEitherByteOrder() {
+        float[] vector = randomVector();
+        for (VectorQuantization quantization : new VectorQuantization[]{VectorQuantization.HALF, VectorQuantization.INT8}) {
+            byte[] bigEndian = VectorQuantizer.encode(vector, quantization);
+            byte[] littleEndian = VectorQuantizer.encode(vector, quantization, ByteOrder.LITTLE_ENDIAN);
+
+            assertArrayEquals(VectorQuantizer.decode(bigEndian, quantization),
+                    VectorQuantizer.decode(littleEndian, quantization, ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    @Test
+    void approximateDistanceTracksExactDistance() {
+        float[] query = randomVector();
+        for (int n = 0; n < 20; n++) {
+            float[] candidate = randomVector();
+            double exact = VectorQuantizer.l2Distance(query, candidate);
+
+            double half = VectorQuantizer.approximateDistance(query, null,
+                    VectorQuantizer.encode(candidate, VectorQuantization.HALF), VectorQuantization.HALF);
+            double int8 = VectorQuantizer.approximateDistance(query, null,
+                    VectorQuantizer.encode(candidate, VectorQuantization.INT8), VectorQuantization.INT8);
+
+            assertEquals(exact, half, exact * 1e-3);
+            assertEquals(exact, int8, exact * 2e-2);
+        }
+    }
+
+    @Test
+    void approximateDistanceKeepsTheNearestNeighbour() {
+        float[] query = randomVector();
+        float[][] candidates = new float[50][];
+        for (int n = 0; n < candidates.length; n++) {
+            candidates[n] = randomVector();
+        }
+        // One candidate is a slightly perturbed copy of the query
+        for (int i = 0; i < DIMENSIONS; i++) {
+            candidates[17][i] = query[i] + (float) random.nextGaussian() * 0.01f;
+        }
+
+        byte[] queryCode = VectorQuantizer.encode(query, VectorQuantization.BINARY);
+        for (VectorQuantization quantization : new VectorQuantization[]{
+                VectorQuantization.HALF, VectorQuantization.INT8, VectorQuantization.BINARY}) {
+            int nearest = -1;
+            double best = Double.MAX_VALUE;
+            for (int n = 0; n < candidates.length; n++) {
+                double distance = VectorQuantizer.approximateDistance(query, queryCode,
+                        VectorQuantizer.encode(candidates[n], quantization), quantization);
+                if (distance < best) {
+                    best = distance;
+                    nearest = n;
+                }
+            }
+            assertEquals(17, nearest, quantization.name());
+        }
+    }
+
+    @Test
+    void binaryDistanceIsHammingDistanceOfTheSigns() {
+        float[] query = randomVector();
+        float[] opposite = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            opposite[i] = query[i] > 0 ? -1 : 1;
+        }
+        byte[] queryCode = VectorQuantizer.encode(query, VectorQuantization.BINARY);
+
+        assertEquals(0, VectorQuantizer.approximateDistance(query, queryCode, queryCode, VectorQuantization.BINARY));
+        assertEquals(DIMENSIONS, VectorQuantizer.approximateDistance(query, queryCode,
+                VectorQuantizer.encode(opposite, VectorQuantization.BINARY), VectorQuantization.BINARY));
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static float roundTrip(float value) {
+        return VectorQuantizer.halfToFloat(VectorQuantizer.floatToHalf(value));
+    }
+}